@@ -34,15 +34,38 @@ package br.usp.poli.lta.cereda.tagger;
 
 import br.usp.poli.lta.cereda.tagger.utils.Utils;
 import br.usp.poli.lta.cereda.tagger.model.Database;
+import br.usp.poli.lta.cereda.tagger.model.Engine;
+import br.usp.poli.lta.cereda.tagger.model.Federation;
+import br.usp.poli.lta.cereda.tagger.model.Filter;
+import br.usp.poli.lta.cereda.tagger.model.Policy;
 import br.usp.poli.lta.cereda.tagger.model.Publication;
+import br.usp.poli.lta.cereda.tagger.model.Range;
+import br.usp.poli.lta.cereda.tagger.scan.Duplicates;
+import br.usp.poli.lta.cereda.tagger.scan.Manifest;
+import br.usp.poli.lta.cereda.tagger.scan.Progress;
+import br.usp.poli.lta.cereda.tagger.scan.Quarantine;
+import br.usp.poli.lta.cereda.tagger.scan.Settings;
+import br.usp.poli.lta.cereda.tagger.scan.Statistics;
 import br.usp.poli.lta.cereda.tagger.utils.Messages;
 import java.io.File;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
@@ -54,6 +77,8 @@ import org.apache.commons.cli.ParseException;
  */
 public class Application {
 
+    private static final List<String> MODIFIERS = Arrays.asList("policy", "threads", "append", "inplace", "follow", "timeout", "memory", "quarantine", "checkpoint", "bandwidth", "rate", "locality", "progress", "status", "partition", "top", "fuzzy", "created", "modified", "pages", "engine");
+
     /**
      * Executa o método principal.
      * @param args Argumentos de linha de comando.
@@ -79,11 +104,12 @@ public class Application {
                 Utils.ensureFileExists(entry);
                 Utils.ensureFile(entry);
 
-                Database database = new Database(entry, false);
-                Publication publication = database.getSinglePublication();
-                publication.sanitize();
+                try (Database database = new Database(entry, false)) {
+                    Publication publication = database.getSinglePublication();
+                    publication.sanitize();
 
-                Utils.printPublication(publication);
+                    Utils.printPublication(publication);
+                }
                 System.exit(0);
 
             }
@@ -98,11 +124,12 @@ public class Application {
                 Utils.ensureFileExists(xml);
                 Utils.ensureFile(xml);
 
-                Database database = new Database(xml, true);
-                Publication publication = database.fromPDFtoPublication(entry);
-                publication.sanitize();
+                try (Database database = new Database(xml, true)) {
+                    Publication publication = database.fromPDFtoPublication(entry);
+                    publication.sanitize();
 
-                Utils.printPublication(publication);
+                    Utils.printPublication(publication);
+                }
                 System.exit(0);
 
             }
@@ -113,28 +140,29 @@ public class Application {
                 Utils.ensureFileExists(entry);
                 Utils.ensureFile(entry);
 
-                Database database = new Database(entry, false);
-                Publication publication = database.getSinglePublication();
+                try (Database database = new Database(entry, false)) {
+                    Publication publication = database.getSinglePublication();
 
-                Optional<String> title = Utils.showInputBox(250, Messages.getMessage("BOX_TITLE_TITLE"), Messages.getMessage("BOX_TITLE_MESSAGE"), publication.getTitle());
-                Optional<String> authors = Utils.showInputBox(250, Messages.getMessage("BOX_AUTHORS_TITLE"), Messages.getMessage("BOX_AUTHORS_MESSAGE"), publication.getFlattenedAuthors());
-                Optional<String> tags = Utils.showInputBox(250, Messages.getMessage("BOX_TAGS_TITLE"), Messages.getMessage("BOX_TAGS_MESSAGE"), publication.getFlattenedTags());
+                    Optional<String> title = Utils.showInputBox(250, Messages.getMessage("BOX_TITLE_TITLE"), Messages.getMessage("BOX_TITLE_MESSAGE"), publication.getTitle());
+                    Optional<String> authors = Utils.showInputBox(250, Messages.getMessage("BOX_AUTHORS_TITLE"), Messages.getMessage("BOX_AUTHORS_MESSAGE"), publication.getFlattenedAuthors());
+                    Optional<String> tags = Utils.showInputBox(250, Messages.getMessage("BOX_TAGS_TITLE"), Messages.getMessage("BOX_TAGS_MESSAGE"), publication.getFlattenedTags());
 
-                if (!validate(title, authors, tags)) {
-                    throw new Exception(Messages.getMessage("DO_NOT_LEAVE_EMPTY_FIELDS"));
-                }
+                    if (!validate(title, authors, tags)) {
+                        throw new Exception(Messages.getMessage("DO_NOT_LEAVE_EMPTY_FIELDS"));
+                    }
 
-                publication.setTitle(title.get());
-                publication.setAuthorsFromString(authors.get());
-                publication.setTagsFromString(tags.get());
-                publication.sanitize();
+                    publication.setTitle(title.get());
+                    publication.setAuthorsFromString(authors.get());
+                    publication.setTagsFromString(tags.get());
+                    publication.sanitize();
 
-                database.update(publication);
-                if (!database.updatePDF(entry)) {
-                    throw new Exception(Messages.getMessage("PDF_UPDATE_ERROR", entry.getAbsolutePath()));
-                }
+                    database.update(publication);
+                    if (!database.updatePDF(entry, line.hasOption("append"), line.hasOption("inplace"))) {
+                        throw new Exception(Messages.getMessage("PDF_UPDATE_ERROR", entry.getAbsolutePath()));
+                    }
 
-                Utils.printMessage(Messages.getMessage("UPDATE_TITLE"), Messages.getMessage("UPDATE_MESSAGE"));
+                    Utils.printMessage(Messages.getMessage("UPDATE_TITLE"), Messages.getMessage("UPDATE_MESSAGE"));
+                }
                 System.exit(0);
             }
 
@@ -146,25 +174,32 @@ public class Application {
 
                 File xml = new File(line.getOptionValue("database"));
                 
-                Database database = new Database(xml, true);
-                Publication publication = database.fromPDFtoPublication(entry);
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    Publication publication = database.fromPDFtoPublication(entry);
 
-                Optional<String> title = Utils.showInputBox(250, Messages.getMessage("BOX_TITLE_TITLE"), Messages.getMessage("BOX_TITLE_MESSAGE"), publication.getTitle());
-                Optional<String> authors = Utils.showInputBox(250, Messages.getMessage("BOX_AUTHORS_TITLE"), Messages.getMessage("BOX_AUTHORS_MESSAGE"), publication.getFlattenedAuthors());
-                Optional<String> tags = Utils.showInputBox(250, Messages.getMessage("BOX_TAGS_TITLE"), Messages.getMessage("BOX_TAGS_MESSAGE"), publication.getFlattenedTags());
+                    Set<String> suggestions = database.suggestTags(publication, 10);
+                    String message = suggestions.isEmpty() ? Messages.getMessage("BOX_TAGS_MESSAGE") : Messages.getMessage("BOX_TAGS_SUGGESTIONS", Messages.getMessage("BOX_TAGS_MESSAGE"), String.join("; ", suggestions));
 
-                if (!validate(title, authors, tags)) {
-                    throw new Exception(Messages.getMessage("DO_NOT_LEAVE_EMPTY_FIELDS"));
-                }
+                    Optional<String> title = Utils.showInputBox(250, Messages.getMessage("BOX_TITLE_TITLE"), Messages.getMessage("BOX_TITLE_MESSAGE"), publication.getTitle());
+                    Optional<String> authors = Utils.showInputBox(250, Messages.getMessage("BOX_AUTHORS_TITLE"), Messages.getMessage("BOX_AUTHORS_MESSAGE"), publication.getFlattenedAuthors());
+                    Optional<String> tags = Utils.showInputBox(250, Messages.getMessage("BOX_TAGS_TITLE"), message, publication.getFlattenedTags());
+
+                    if (!validate(title, authors, tags)) {
+                        throw new Exception(Messages.getMessage("DO_NOT_LEAVE_EMPTY_FIELDS"));
+                    }
 
-                publication.setTitle(title.get());
-                publication.setAuthorsFromString(authors.get());
-                publication.setTagsFromString(tags.get());
-                publication.sanitize();
+                    publication.setTitle(title.get());
+                    publication.setAuthorsFromString(authors.get());
+                    publication.setTagsFromString(tags.get());
+                    publication.sanitize();
 
-                database.update(publication);
+                    database.update(publication);
+                    if (line.hasOption("inplace") && !database.updatePDF(entry, line.hasOption("append"), true)) {
+                        throw new Exception(Messages.getMessage("PDF_UPDATE_ERROR", entry.getAbsolutePath()));
+                    }
 
-                Utils.printMessage(Messages.getMessage("UPDATE_TITLE"), Messages.getMessage("UPDATE_MESSAGE"));
+                    Utils.printMessage(Messages.getMessage("UPDATE_TITLE"), Messages.getMessage("UPDATE_MESSAGE"));
+                }
                 System.exit(0);
             }
 
@@ -174,7 +209,7 @@ public class Application {
                 Utils.ensureFileExists(entry);
                 Utils.ensureFile(entry);
 
-                if (!Database.removeDataFromPDF(entry)) {
+                if (!Database.removeDataFromPDF(entry, line.hasOption("append"), line.hasOption("inplace"))) {
                     throw new Exception(Messages.getMessage("PDF_REMOVE_ERROR", entry.getAbsolutePath()));
                 }
 
@@ -193,13 +228,17 @@ public class Application {
                 Utils.ensureFileExists(xml);
                 Utils.ensureFile(xml);
 
-                Database database = new Database(xml, true);
-                Publication publication = database.fromPDFtoPublication(entry);
-                publication.sanitize();
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    Publication publication = database.fromPDFtoPublication(entry);
+                    publication.sanitize();
 
-                database.remove(publication);
+                    database.remove(publication);
+                    if (line.hasOption("inplace") && !Database.removeDataFromPDF(entry, line.hasOption("append"), true)) {
+                        throw new Exception(Messages.getMessage("PDF_REMOVE_ERROR", entry.getAbsolutePath()));
+                    }
 
-                Utils.printMessage(Messages.getMessage("REMOVE_TITLE"), Messages.getMessage("REMOVE_MESSAGE"));
+                    Utils.printMessage(Messages.getMessage("REMOVE_TITLE"), Messages.getMessage("REMOVE_MESSAGE"));
+                }
                 System.exit(0);
 
             }
@@ -210,14 +249,13 @@ public class Application {
                 Utils.ensureFileExists(entry);
                 Utils.ensureDirectory(entry);
 
-                Database database = new Database(entry, false);
+                try (Database database = getReference(line, entry)) {
 
-                Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
-                Utils.ensureQuery(tags);
+                    Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
+                    Utils.ensureQuery(tags);
 
-                Set<Publication> result = database.searchTags(tags);
-
-                Utils.printReport(Messages.getMessage("QUERY_RESULT_TAGS"), Utils.buildEntries(result));
+                    printSearch(line, database, tags, null);
+                }
                 System.exit(0);
 
             }
@@ -228,14 +266,13 @@ public class Application {
                 Utils.ensureFileExists(entry);
                 Utils.ensureDirectory(entry);
 
-                Database database = new Database(entry, false);
-
-                Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
-                Utils.ensureQuery(authors);
+                try (Database database = getReference(line, entry)) {
 
-                Set<Publication> result = database.searchAuthors(authors);
+                    Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
+                    Utils.ensureQuery(authors);
 
-                Utils.printReport(Messages.getMessage("QUERY_RESULT_AUTHORS"), Utils.buildEntries(result));
+                    printSearch(line, database, null, authors);
+                }
                 System.exit(0);
 
             }
@@ -246,17 +283,88 @@ public class Application {
                 Utils.ensureFileExists(entry);
                 Utils.ensureDirectory(entry);
 
-                Database database = new Database(entry, false);
+                try (Database database = getReference(line, entry)) {
+
+                    Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
+                    Utils.ensureQuery(tags);
 
-                Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
-                Utils.ensureQuery(tags);
+                    Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
+                    Utils.ensureQuery(authors);
 
-                Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
-                Utils.ensureQuery(authors);
+                    printSearch(line, database, tags, authors);
+                }
+                System.exit(0);
 
-                Set<Publication> result = database.searchAuthorsWithTags(authors, tags);
+            }
 
-                Utils.printReport(Messages.getMessage("QUERY_RESULT_AUTHORS_TAGS"), Utils.buildEntries(result));
+            if (arguments(line, "entry", "search", "title")) {
+
+                File entry = new File(line.getOptionValue("entry"));
+                Utils.ensureFileExists(entry);
+                Utils.ensureDirectory(entry);
+
+                try (Database database = getReference(line, entry)) {
+
+                    String query = line.getOptionValue("title");
+                    Utils.ensureQuery(query);
+
+                    Utils.printReport(Messages.getMessage("QUERY_RESULT_TITLE"), Utils.buildEntries(searchTitle(database, query, getFilter(line))));
+                }
+                System.exit(0);
+
+            }
+
+            if (arguments(line, "entry", "search") && getFilter(line) != null) {
+
+                File entry = new File(line.getOptionValue("entry"));
+                Utils.ensureFileExists(entry);
+                Utils.ensureDirectory(entry);
+
+                try (Database database = getReference(line, entry)) {
+
+                    printSearch(line, database, null, null);
+                }
+                System.exit(0);
+
+            }
+
+            if (Federation.isFederated(line.getOptionValue("database", "")) && (arguments(line, "database", "search", "tags") || arguments(line, "database", "search", "authors") || arguments(line, "database", "search", "tags", "authors") || arguments(line, "database", "search", "title") || (arguments(line, "database", "search") && getFilter(line) != null))) {
+
+                List<File> sources = Federation.resolve(line.getOptionValue("database"));
+                if (sources.isEmpty()) {
+                    throw new Exception(Messages.getMessage("FEDERATION_EMPTY", line.getOptionValue("database")));
+                }
+                for (File xml : sources) {
+                    Utils.ensureFileExists(xml);
+                    Utils.ensureFile(xml);
+                }
+
+                Federation federation = new Federation(sources, getSettings(line));
+                Map<Publication, Set<File>> result;
+                String title;
+
+                if (line.hasOption("title")) {
+                    String query = line.getOptionValue("title");
+                    Utils.ensureQuery(query);
+                    Filter filter = getFilter(line);
+                    result = federation.search((Database database) -> Federation.unranked(searchTitle(database, query, filter)), 0);
+                    title = "QUERY_RESULT_TITLE";
+                } else {
+                    Set<String> tags = null;
+                    if (line.hasOption("tags")) {
+                        tags = Utils.toSet(line.getOptionValue("tags"));
+                        Utils.ensureQuery(tags);
+                    }
+                    Set<String> authors = null;
+                    if (line.hasOption("authors")) {
+                        authors = Utils.toSet(line.getOptionValue("authors"));
+                        Utils.ensureQuery(authors);
+                    }
+                    result = federation.search(getQuery(line, tags, authors), line.hasOption("top") ? getInteger(line, "top", 0) : 0);
+                    title = getQueryTitle(tags, authors);
+                }
+
+                Utils.printReport(Messages.getMessage(title), Utils.buildAttributions(result));
                 System.exit(0);
 
             }
@@ -267,14 +375,13 @@ public class Application {
                 Utils.ensureFileExists(xml);
                 Utils.ensureFile(xml);
 
-                Database database = new Database(xml, true);
-
-                Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
-                Utils.ensureQuery(tags);
+                try (Database database = new Database(xml, true, getSettings(line))) {
 
-                Set<Publication> result = database.searchTags(tags);
+                    Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
+                    Utils.ensureQuery(tags);
 
-                Utils.printReport(Messages.getMessage("QUERY_RESULT_TAGS"), Utils.buildEntries(result));
+                    printSearch(line, database, tags, null);
+                }
                 System.exit(0);
 
             }
@@ -285,14 +392,13 @@ public class Application {
                 Utils.ensureFileExists(xml);
                 Utils.ensureFile(xml);
 
-                Database database = new Database(xml, true);
-
-                Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
-                Utils.ensureQuery(authors);
+                try (Database database = new Database(xml, true, getSettings(line))) {
 
-                Set<Publication> result = database.searchAuthors(authors);
+                    Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
+                    Utils.ensureQuery(authors);
 
-                Utils.printReport(Messages.getMessage("QUERY_RESULT_AUTHORS"), Utils.buildEntries(result));
+                    printSearch(line, database, null, authors);
+                }
                 System.exit(0);
 
             }
@@ -303,17 +409,47 @@ public class Application {
                 Utils.ensureFileExists(xml);
                 Utils.ensureFile(xml);
 
-                Database database = new Database(xml, true);
+                try (Database database = new Database(xml, true, getSettings(line))) {
+
+                    Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
+                    Utils.ensureQuery(tags);
+
+                    Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
+                    Utils.ensureQuery(authors);
+
+                    printSearch(line, database, tags, authors);
+                }
+                System.exit(0);
+
+            }
+
+            if (arguments(line, "database", "search", "title")) {
+
+                File xml = new File(line.getOptionValue("database"));
+                Utils.ensureFileExists(xml);
+                Utils.ensureFile(xml);
+
+                try (Database database = new Database(xml, true, getSettings(line))) {
+
+                    String query = line.getOptionValue("title");
+                    Utils.ensureQuery(query);
+
+                    Utils.printReport(Messages.getMessage("QUERY_RESULT_TITLE"), Utils.buildEntries(searchTitle(database, query, getFilter(line))));
+                }
+                System.exit(0);
+
+            }
 
-                Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
-                Utils.ensureQuery(tags);
+            if (arguments(line, "database", "search") && getFilter(line) != null) {
 
-                Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
-                Utils.ensureQuery(authors);
+                File xml = new File(line.getOptionValue("database"));
+                Utils.ensureFileExists(xml);
+                Utils.ensureFile(xml);
 
-                Set<Publication> result = database.searchAuthorsWithTags(authors, tags);
+                try (Database database = new Database(xml, true, getSettings(line))) {
 
-                Utils.printReport(Messages.getMessage("QUERY_RESULT_AUTHORS_TAGS"), Utils.buildEntries(result));
+                    printSearch(line, database, null, null);
+                }
                 System.exit(0);
 
             }
@@ -328,15 +464,14 @@ public class Application {
                 Utils.ensureFileExists(xml);
                 Utils.ensureFile(xml);
 
-                Database database = new Database(xml, true);
-                database.synchronizePublications(entry);
-
-                Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
-                Utils.ensureQuery(tags);
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    synchronize(line, database, entry);
 
-                Set<Publication> result = database.searchTags(tags);
+                    Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
+                    Utils.ensureQuery(tags);
 
-                Utils.printReport(Messages.getMessage("QUERY_RESULT_TAGS"), Utils.buildEntries(result));
+                    printSearch(line, database, tags, null);
+                }
                 System.exit(0);
 
             }
@@ -351,15 +486,14 @@ public class Application {
                 Utils.ensureFileExists(xml);
                 Utils.ensureFile(xml);
 
-                Database database = new Database(xml, true);
-                database.synchronizePublications(entry);
-
-                Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
-                Utils.ensureQuery(authors);
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    synchronize(line, database, entry);
 
-                Set<Publication> result = database.searchAuthors(authors);
+                    Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
+                    Utils.ensureQuery(authors);
 
-                Utils.printReport(Messages.getMessage("QUERY_RESULT_AUTHORS"), Utils.buildEntries(result));
+                    printSearch(line, database, null, authors);
+                }
                 System.exit(0);
 
             }
@@ -374,19 +508,270 @@ public class Application {
                 Utils.ensureFileExists(xml);
                 Utils.ensureFile(xml);
 
-                Database database = new Database(xml, true);
-                database.synchronizePublications(entry);
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    synchronize(line, database, entry);
+
+                    Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
+                    Utils.ensureQuery(tags);
+
+                    Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
+                    Utils.ensureQuery(authors);
+
+                    printSearch(line, database, tags, authors);
+                }
+                System.exit(0);
+            }
+
+            if (arguments(line, "database", "entry", "search", "title")) {
+
+                File entry = new File(line.getOptionValue("entry"));
+                Utils.ensureFileExists(entry);
+                Utils.ensureDirectory(entry);
+
+                File xml = new File(line.getOptionValue("database"));
+                Utils.ensureFileExists(xml);
+                Utils.ensureFile(xml);
+
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    synchronize(line, database, entry);
 
-                Set<String> tags = Utils.toSet(line.getOptionValue("tags"));
-                Utils.ensureQuery(tags);
+                    String query = line.getOptionValue("title");
+                    Utils.ensureQuery(query);
+
+                    Utils.printReport(Messages.getMessage("QUERY_RESULT_TITLE"), Utils.buildEntries(searchTitle(database, query, getFilter(line))));
+                }
+                System.exit(0);
 
-                Set<String> authors = Utils.toSet(line.getOptionValue("authors"));
-                Utils.ensureQuery(authors);
+            }
 
-                Set<Publication> result = database.searchAuthorsWithTags(authors, tags);
+            if (arguments(line, "entry", "index", "database")) {
 
-                Utils.printReport(Messages.getMessage("QUERY_RESULT_AUTHORS_TAGS"), Utils.buildEntries(result));
+                File entry = new File(line.getOptionValue("entry"));
+                Utils.ensureFileExists(entry);
+                Utils.ensureDirectory(entry);
+
+                File xml = new File(line.getOptionValue("database"));
+
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    Statistics statistics = new Statistics();
+                    Progress progress = getProgress(line, statistics);
+                    try {
+                        database.ingest(entry, getPolicy(line), statistics);
+                    } finally {
+                        progress.close();
+                    }
+
+                    printFailures(statistics);
+                    Utils.printMessage(Messages.getMessage("INDEX_TITLE"), Messages.getMessage("INDEX_MESSAGE", statistics.getProcessed(), statistics.getBytes() / (1024 * 1024), String.format("%.1f", statistics.getElapsed()), statistics.getAdded(), statistics.getUpdated(), statistics.getKept(), statistics.getFailed()));
+                    printScheduling(line, statistics);
+                }
+                System.exit(0);
+
+            }
+
+            if (arguments(line, "entry", "index", "partial")) {
+
+                File entry = new File(line.getOptionValue("entry"));
+                Utils.ensureFileExists(entry);
+                Utils.ensureDirectory(entry);
+
+                File partial = new File(line.getOptionValue("partial"));
+
+                Statistics statistics = new Statistics();
+                Progress progress = getProgress(line, statistics);
+                try {
+                    Database.export(entry, partial, getSettings(line), statistics);
+                } finally {
+                    progress.close();
+                }
+
+                printFailures(statistics);
+                Utils.printMessage(Messages.getMessage("PARTIAL_TITLE"), Messages.getMessage("PARTIAL_MESSAGE", statistics.getProcessed(), statistics.getBytes() / (1024 * 1024), String.format("%.1f", statistics.getElapsed()), partial.getAbsolutePath(), statistics.getFailed()));
+                printScheduling(line, statistics);
                 System.exit(0);
+
+            }
+
+            if (arguments(line, "database", "merge")) {
+
+                List<File> partials = Utils.toSet(line.getOptionValue("merge")).stream().filter((String t) -> !t.isEmpty()).sorted().map(File::new).collect(Collectors.toList());
+                for (File partial : partials) {
+                    Utils.ensureFileExists(partial);
+                    Utils.ensureFile(partial);
+                }
+
+                File xml = new File(line.getOptionValue("database"));
+
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    Statistics statistics = new Statistics();
+                    database.absorb(partials, getPolicy(line), statistics);
+
+                    Utils.printMessage(Messages.getMessage("MERGE_TITLE"), Messages.getMessage("MERGE_MESSAGE", statistics.getDiscovered(), partials.size(), statistics.getAdded(), statistics.getUpdated(), statistics.getKept()));
+                }
+                System.exit(0);
+
+            }
+
+            if (arguments(line, "database", "facets") || arguments(line, "database", "facets", "search", "tags") || arguments(line, "database", "facets", "search", "authors") || arguments(line, "database", "facets", "search", "tags", "authors")) {
+
+                File xml = new File(line.getOptionValue("database"));
+                Utils.ensureFileExists(xml);
+                Utils.ensureFile(xml);
+
+                Set<String> tags = null;
+                if (line.hasOption("tags")) {
+                    tags = Utils.toSet(line.getOptionValue("tags"));
+                    Utils.ensureQuery(tags);
+                }
+                Set<String> authors = null;
+                if (line.hasOption("authors")) {
+                    authors = Utils.toSet(line.getOptionValue("authors"));
+                    Utils.ensureQuery(authors);
+                }
+
+                try (Database database = new Database(xml, true)) {
+                    Utils.printCounts(Messages.getMessage("FACETS_TITLE"), database.facets(tags, authors, getInteger(line, "top", Integer.MAX_VALUE)));
+                }
+                System.exit(0);
+
+            }
+
+            if (arguments(line, "database", "complete")) {
+
+                File xml = new File(line.getOptionValue("database"));
+                Utils.ensureFileExists(xml);
+                Utils.ensureFile(xml);
+
+                String prefix = line.getOptionValue("complete");
+
+                try (Database database = new Database(xml, true)) {
+                    Utils.printCounts(Messages.getMessage("COMPLETE_TITLE", prefix.trim()), database.completeTag(prefix, getInteger(line, "top", 20)));
+                }
+                System.exit(0);
+
+            }
+
+            if (arguments(line, "database", "cooccur")) {
+
+                File xml = new File(line.getOptionValue("database"));
+                Utils.ensureFileExists(xml);
+                Utils.ensureFile(xml);
+
+                String tag = line.getOptionValue("cooccur").trim();
+
+                try (Database database = new Database(xml, true)) {
+                    Utils.printCounts(Messages.getMessage("COOCCUR_TITLE", tag), database.cooccurrences(tag, getInteger(line, "top", 20)));
+                }
+                System.exit(0);
+
+            }
+
+            if (retagging(line)) {
+
+                File xml = new File(line.getOptionValue("database"));
+                Utils.ensureFileExists(xml);
+                Utils.ensureFile(xml);
+
+                Map<String, String> renames = getRenames(line);
+                Set<String> removals = line.hasOption("untag") ? Utils.toSet(line.getOptionValue("untag")) : new HashSet<>();
+                removals.remove("");
+
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    if (line.hasOption("queue")) {
+                        File entry = new File(line.getOptionValue("entry"));
+                        Utils.ensureFileExists(entry);
+                        Utils.ensureDirectory(entry);
+                        synchronize(line, database, entry);
+                    }
+
+                    Statistics statistics = new Statistics();
+                    List<Publication> result = database.retag(renames, removals, statistics);
+
+                    Utils.printMessage(Messages.getMessage("RETAG_TITLE"), Messages.getMessage("RETAG_MESSAGE", statistics.getUpdated(), String.format("%.1f", statistics.getElapsed())));
+                    if (line.hasOption("queue")) {
+                        File queue = new File(line.getOptionValue("queue"));
+                        int count = Manifest.write(queue, result);
+                        Utils.printMessage(Messages.getMessage("RETAG_TITLE"), Messages.getMessage("QUEUE_MESSAGE", count, queue.getAbsolutePath()));
+                    }
+                }
+                System.exit(0);
+
+            }
+
+            if (arguments(line, "entry", "stamp")) {
+
+                File entry = new File(line.getOptionValue("entry"));
+                Utils.ensureFileExists(entry);
+                Utils.ensureFile(entry);
+
+                Statistics statistics = new Statistics();
+                try (Manifest manifest = new Manifest(entry)) {
+                    Progress progress = getProgress(line, statistics);
+                    try {
+                        Database.stampManifest(manifest, getSettings(line), statistics);
+                    } finally {
+                        progress.close();
+                    }
+                }
+
+                printStamp(statistics);
+                printScheduling(line, statistics);
+                System.exit(0);
+
+            }
+
+            if (arguments(line, "entry", "stamp", "database")) {
+
+                File entry = new File(line.getOptionValue("entry"));
+                Utils.ensureFileExists(entry);
+                Utils.ensureDirectory(entry);
+
+                File xml = new File(line.getOptionValue("database"));
+                Utils.ensureFileExists(xml);
+                Utils.ensureFile(xml);
+
+                try (Database database = new Database(xml, true, getSettings(line))) {
+                    Statistics synchronization = new Statistics();
+                    Progress synchronizing = getProgress(line, synchronization);
+                    try {
+                        database.synchronizePublications(entry, synchronization);
+                    } finally {
+                        synchronizing.close();
+                    }
+
+                    Statistics statistics = new Statistics();
+                    Progress stamping = getProgress(line, statistics);
+                    try {
+                        database.stampReferences(statistics);
+                    } finally {
+                        stamping.close();
+                    }
+
+                    printStamp(statistics);
+                    printScheduling(line, statistics);
+                }
+                System.exit(0);
+
+            }
+
+            if (arguments(line, "entry", "duplicates")) {
+
+                File entry = new File(line.getOptionValue("entry"));
+                Utils.ensureFileExists(entry);
+                Utils.ensureDirectory(entry);
+
+                Duplicates duplicates = new Duplicates(getSettings(line));
+                Statistics statistics = new Statistics();
+                duplicates.find(entry, statistics);
+
+                printFailures(statistics);
+                if (!duplicates.getGroups().isEmpty()) {
+                    Utils.printReport(Messages.getMessage("DUPLICATES_TITLE"), Utils.buildDuplicates(duplicates.getGroups()));
+                }
+                long megabyte = 1024 * 1024;
+                Utils.printMessage(Messages.getMessage("DUPLICATES_TITLE"), Messages.getMessage("DUPLICATES_MESSAGE", duplicates.getFiles(), duplicates.getBytes() / megabyte, duplicates.getGroups().size(), duplicates.getReclaimable() / megabyte, duplicates.getRead() / megabyte, String.format("%.1f", 100.0 * duplicates.getRead() / Math.max(duplicates.getBytes(), 1))));
+                System.exit(0);
+
             }
 
             throw new ParseException("quack");
@@ -409,8 +794,86 @@ public class Application {
         System.exit(0);
     }
 
+    /**
+     * Exibe os relatórios de arquivos ignorados e de arquivos não processados
+     * de uma análise, caso existam.
+     * @param statistics Estatísticas da análise.
+     */
+    private static void printFailures(Statistics statistics) {
+        if (!statistics.getSkips().isEmpty()) {
+            Utils.printReport(Messages.getMessage("SKIPPED_FILES"), Utils.buildFailures(statistics.getSkips()));
+        }
+        if (!statistics.getFailures().isEmpty()) {
+            Utils.printReport(Messages.getMessage("FAILED_FILES"), Utils.buildFailures(statistics.getFailures()));
+        }
+    }
+
+    /**
+     * Exibe o relatório de uma gravação de metadados em lote.
+     * @param statistics Estatísticas da gravação.
+     */
+    private static void printStamp(Statistics statistics) {
+        printFailures(statistics);
+        double elapsed = Math.max(statistics.getElapsed(), 1e-3);
+        Utils.printMessage(Messages.getMessage("STAMP_TITLE"), Messages.getMessage("STAMP_MESSAGE", statistics.getProcessed(), statistics.getBytes() / (1024 * 1024), String.format("%.1f", elapsed), String.format("%.1f", statistics.getProcessed() / elapsed), String.format("%.1f", statistics.getBytes() / elapsed / (1024 * 1024)), statistics.getFailed()));
+    }
+
+    /**
+     * Exibe o relatório do escalonamento de leituras, caso algum limite de
+     * banda ou o favorecimento da localidade tenha sido solicitado.
+     * @param line Linha de comando.
+     * @param statistics Estatísticas da análise.
+     */
+    private static void printScheduling(CommandLine line, Statistics statistics) {
+        if (line.hasOption("bandwidth") || line.hasOption("rate") || line.hasOption("locality")) {
+            double elapsed = Math.max(statistics.getElapsed(), 1e-3);
+            Utils.printMessage(Messages.getMessage("SCHEDULING_TITLE"), Messages.getMessage("SCHEDULING_MESSAGE", String.format("%.1f", statistics.getBytes() / elapsed / (1024 * 1024)), String.format("%.1f", statistics.getProcessed() / elapsed), String.format("%.1f", statistics.getLatency()), String.format("%.1f", statistics.getPeakLatency()), String.format("%.1f", statistics.getWaited()), statistics.getConcurrency()));
+        }
+    }
+
+    /**
+     * Verifica se a linha de comando corresponde a uma operação de etiquetas
+     * em lote, com renomeações, remoções ou ambas, e, caso o arquivo de
+     * manifesto para gravação posterior seja informado, com o diretório dos
+     * arquivos das publicações.
+     * @param line Linha de comando.
+     * @return Valor lógico indicando uma operação de etiquetas em lote.
+     */
+    private static boolean retagging(CommandLine line) {
+        if (!line.hasOption("retag") && !line.hasOption("untag")) {
+            return false;
+        }
+        if (line.hasOption("queue") != line.hasOption("entry")) {
+            return false;
+        }
+        return arguments(line, Stream.of("database", "retag", "untag", "entry", "queue").filter(line::hasOption).toArray(String[]::new));
+    }
+
+    /**
+     * Obtém as renomeações de etiquetas da linha de comando, no formato
+     * 'original=novo', separadas por ponto-e-vírgula.
+     * @param line Linha de comando.
+     * @return Mapa de etiquetas originais e respectivos novos nomes.
+     * @throws Exception Uma das renomeações é inválida.
+     */
+    private static Map<String, String> getRenames(CommandLine line) throws Exception {
+        Map<String, String> renames = new HashMap<>();
+        if (line.hasOption("retag")) {
+            for (String rule : Utils.toSet(line.getOptionValue("retag"))) {
+                String[] parts = rule.split("=", -1);
+                if (parts.length != 2 || parts[0].trim().isEmpty() || parts[1].trim().isEmpty()) {
+                    throw new Exception(Messages.getMessage("INVALID_VALUE", rule, "retag"));
+                }
+                renames.put(parts[0].trim(), parts[1].trim());
+            }
+        }
+        return renames;
+    }
+
     /**
      * Verifica se a linha de comando apresenta os sinalizadores informados.
+     * Sinalizadores modificadores, que apenas ajustam o comportamento de um
+     * comando, não são considerados.
      * @param check Linha de comando.
      * @param values Sinalizadores a serem procurados.
      * @return Valor lógico indicando se todos os sinalizadores informados estão
@@ -422,7 +885,314 @@ public class Application {
                 return false;
             }
         }
-        return check.getOptions().length == values.length;
+        return Arrays.stream(check.getOptions()).map(Option::getLongOpt).filter((String t) -> !MODIFIERS.contains(t)).count() == values.length;
+    }
+
+    /**
+     * Exibe o resultado de uma busca por etiquetas, autores ou ambos. Com o
+     * sinalizador de limite, as publicações mais relevantes são exibidas em
+     * ordem decrescente de relevância; sem ele, todas as publicações
+     * encontradas são exibidas. Com o sinalizador de aproximação, os autores
+     * são buscados com a distância de edição informada.
+     * @param line Linha de comando.
+     * @param database Base de dados.
+     * @param tags Conjunto de etiquetas, ou nulo.
+     * @param authors Conjunto de autores, ou nulo.
+     * @throws Exception O limite informado é inválido.
+     */
+    private static void printSearch(CommandLine line, Database database, Set<String> tags, Set<String> authors) throws Exception {
+        List<Map.Entry<Publication, Double>> result = getQuery(line, tags, authors).apply(database);
+        Utils.printReport(Messages.getMessage(getQueryTitle(tags, authors)), result.stream().map((Map.Entry<Publication, Double> t) -> t.getKey().toString()).collect(Collectors.toList()));
+    }
+
+    /**
+     * Obtém a consulta por etiquetas, autores ou ambos a ser aplicada a uma
+     * base de dados, de acordo com os sinalizadores de limite e aproximação.
+     * @param line Linha de comando.
+     * @param tags Conjunto de etiquetas, ou nulo.
+     * @param authors Conjunto de autores, ou nulo.
+     * @return Consulta.
+     * @throws Exception O limite ou a distância informados são inválidos.
+     */
+    private static Function<Database, List<Map.Entry<Publication, Double>>> getQuery(CommandLine line, Set<String> tags, Set<String> authors) throws Exception {
+        int distance = line.hasOption("fuzzy") ? getInteger(line, "fuzzy", 1) : -1;
+        int limit = line.hasOption("top") ? getInteger(line, "top", 0) : 0;
+        Filter filter = getFilter(line);
+        return (Database database) -> {
+            if (tags == null && authors == null) {
+                List<Map.Entry<Publication, Double>> result = Federation.unranked(database.searchRange(filter));
+                return limit > 0 && result.size() > limit ? result.subList(0, limit) : result;
+            } else if (limit > 0) {
+                return database.rank(tags, authors, distance, limit, filter);
+            }
+            Set<Publication> result;
+            if (tags == null) {
+                result = distance < 0 ? database.searchAuthors(authors) : database.searchAuthors(authors, distance);
+            } else if (authors == null) {
+                result = database.searchTags(tags);
+            } else {
+                result = database.searchAuthorsWithTags(authors, tags, distance);
+            }
+            return Federation.unranked(filter == null ? result : database.restrict(result, filter));
+        };
+    }
+
+    /**
+     * Busca as publicações cujos títulos correspondem à consulta informada,
+     * restritas ao filtro de intervalos, se houver.
+     * @param database Base de dados.
+     * @param query Consulta.
+     * @param filter Filtro de intervalos, ou nulo.
+     * @return Conjunto de publicações.
+     */
+    private static Set<Publication> searchTitle(Database database, String query, Filter filter) {
+        return filter == null ? database.searchTitle(query) : database.restrict(database.searchTitle(query), filter);
+    }
+
+    /**
+     * Obtém a chave do título do resultado de uma busca.
+     * @param tags Conjunto de etiquetas, ou nulo.
+     * @param authors Conjunto de autores, ou nulo.
+     * @return Chave da mensagem.
+     */
+    private static String getQueryTitle(Set<String> tags, Set<String> authors) {
+        if (tags == null && authors == null) {
+            return "QUERY_RESULT_RANGES";
+        }
+        return tags == null ? "QUERY_RESULT_AUTHORS" : (authors == null ? "QUERY_RESULT_TAGS" : "QUERY_RESULT_AUTHORS_TAGS");
+    }
+
+    /**
+     * Obtém o filtro de intervalos de datas de criação e modificação e de
+     * número de páginas a partir da linha de comando.
+     * @param line Linha de comando.
+     * @return Filtro de intervalos, ou nulo caso nenhum intervalo tenha sido
+     * informado.
+     * @throws Exception Um dos intervalos informados é inválido.
+     */
+    private static Filter getFilter(CommandLine line) throws Exception {
+        Filter filter = new Filter();
+        filter.setCreated(getRange(line, "created", true));
+        filter.setModified(getRange(line, "modified", true));
+        filter.setPages(getRange(line, "pages", false));
+        return filter.isEmpty() ? null : filter;
+    }
+
+    /**
+     * Obtém um intervalo de um sinalizador, no formato {@code a..b}, com
+     * extremos opcionais ({@code a..} ou {@code ..b}), ou um único valor.
+     * Datas são informadas como {@code yyyy}, {@code yyyy-MM} ou
+     * {@code yyyy-MM-dd} e abrangem todo o período correspondente, no fuso
+     * horário do sistema.
+     * @param line Linha de comando.
+     * @param option Sinalizador.
+     * @param date Sinalizador que indica se os extremos são datas.
+     * @return Intervalo, ou nulo caso o sinalizador não esteja presente.
+     * @throws Exception O valor informado é inválido.
+     */
+    private static Range getRange(CommandLine line, String option, boolean date) throws Exception {
+        if (!line.hasOption(option)) {
+            return null;
+        }
+        String value = line.getOptionValue(option).trim();
+        try {
+            int separator = value.indexOf("..");
+            String lower = separator < 0 ? value : value.substring(0, separator).trim();
+            String upper = separator < 0 ? value : value.substring(separator + 2).trim();
+            if (lower.isEmpty() && upper.isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+            long minimum = lower.isEmpty() ? Long.MIN_VALUE : (date ? getDate(lower, false) : Long.parseLong(lower));
+            long maximum = upper.isEmpty() ? Long.MAX_VALUE : (date ? getDate(upper, true) : Long.parseLong(upper));
+            if (minimum > maximum) {
+                throw new IllegalArgumentException();
+            }
+            return new Range(minimum, maximum);
+        } catch (IllegalArgumentException | DateTimeException exception) {
+            throw new Exception(Messages.getMessage("INVALID_VALUE", line.getOptionValue(option), option));
+        }
+    }
+
+    /**
+     * Converte uma data parcial no início ou no fim do período que ela
+     * abrange, em milissegundos.
+     * @param text Data, como {@code yyyy}, {@code yyyy-MM} ou
+     * {@code yyyy-MM-dd}.
+     * @param end Sinalizador que indica o fim do período.
+     * @return Início do período, ou último milissegundo do período.
+     */
+    private static long getDate(String text, boolean end) {
+        String[] parts = text.split("-");
+        LocalDate start;
+        LocalDate next;
+        switch (parts.length) {
+            case 1:
+                start = LocalDate.of(Integer.parseInt(parts[0]), 1, 1);
+                next = start.plusYears(1);
+                break;
+            case 2:
+                start = LocalDate.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), 1);
+                next = start.plusMonths(1);
+                break;
+            case 3:
+                start = LocalDate.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                next = start.plusDays(1);
+                break;
+            default:
+                throw new IllegalArgumentException(text);
+        }
+        long millis = (end ? next : start).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return end ? millis - 1 : millis;
+    }
+
+    /**
+     * Obtém o valor inteiro positivo de um sinalizador.
+     * @param line Linha de comando.
+     * @param option Sinalizador.
+     * @param fallback Valor padrão, caso o sinalizador não esteja presente.
+     * @return Valor inteiro.
+     * @throws Exception O valor informado é inválido.
+     */
+    private static int getInteger(CommandLine line, String option, int fallback) throws Exception {
+        if (!line.hasOption(option)) {
+            return fallback;
+        }
+        try {
+            int value = Integer.parseInt(line.getOptionValue(option).trim());
+            if (value <= 0) {
+                throw new NumberFormatException();
+            }
+            return value;
+        } catch (NumberFormatException exception) {
+            throw new Exception(Messages.getMessage("INVALID_VALUE", line.getOptionValue(option), option));
+        }
+    }
+
+    /**
+     * Obtém as configurações da análise de arquivos a partir da linha de
+     * comando.
+     * @param line Linha de comando.
+     * @return Configurações da análise.
+     * @throws Exception Um dos valores informados é inválido.
+     */
+    private static Settings getSettings(CommandLine line) throws Exception {
+        Settings settings = new Settings();
+        settings.setThreads(getInteger(line, "threads", settings.getThreads()));
+        settings.setAppend(line.hasOption("append"));
+        settings.setFollow(line.hasOption("follow"));
+        settings.setTimeout(getInteger(line, "timeout", settings.getTimeout()));
+        settings.setMemory(getInteger(line, "memory", settings.getMemory()));
+        settings.setBandwidth(getInteger(line, "bandwidth", settings.getBandwidth()));
+        settings.setRate(getInteger(line, "rate", settings.getRate()));
+        settings.setLocality(line.hasOption("locality"));
+        settings.setEngine(getEngine(line));
+        if (line.hasOption("partition")) {
+            String value = line.getOptionValue("partition").trim();
+            try {
+                String[] parts = value.split("/");
+                int partition = Integer.parseInt(parts[0].trim());
+                int partitions = Integer.parseInt(parts[1].trim());
+                if (parts.length != 2 || partition < 1 || partition > partitions) {
+                    throw new NumberFormatException();
+                }
+                settings.setPartition(partition - 1);
+                settings.setPartitions(partitions);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+                throw new Exception(Messages.getMessage("INVALID_VALUE", value, "partition"));
+            }
+        }
+        if (line.hasOption("checkpoint")) {
+            settings.setCheckpoint(new File(line.getOptionValue("checkpoint")));
+        }
+        if (line.hasOption("quarantine")) {
+            settings.setQuarantine(new Quarantine(new File(line.getOptionValue("quarantine"))));
+        }
+        return settings;
+    }
+
+    /**
+     * Carrega as publicações de um diretório de arquivos, exibindo o
+     * progresso da análise.
+     * @param line Linha de comando.
+     * @param entry Diretório contendo os arquivos.
+     * @return Banco de dados com as publicações encontradas.
+     * @throws Exception Um dos valores informados é inválido ou a análise foi
+     * interrompida.
+     */
+    private static Database getReference(CommandLine line, File entry) throws Exception {
+        Statistics statistics = new Statistics();
+        Progress progress = getProgress(line, statistics);
+        try {
+            return new Database(entry, false, getSettings(line), statistics);
+        } finally {
+            progress.close();
+        }
+    }
+
+    /**
+     * Sincroniza as publicações do banco de dados com os arquivos de um
+     * diretório, exibindo o progresso da análise.
+     * @param line Linha de comando.
+     * @param database Banco de dados.
+     * @param entry Diretório contendo os arquivos.
+     * @throws Exception Um dos valores informados é inválido ou a análise foi
+     * interrompida.
+     */
+    private static void synchronize(CommandLine line, Database database, File entry) throws Exception {
+        Statistics statistics = new Statistics();
+        Progress progress = getProgress(line, statistics);
+        try {
+            database.synchronizePublications(entry, statistics);
+        } finally {
+            progress.close();
+        }
+    }
+
+    /**
+     * Cria o relatório periódico de progresso de acordo com a linha de
+     * comando, exibido na saída de erro a cada cinco segundos por padrão.
+     * @param line Linha de comando.
+     * @param statistics Estatísticas da análise.
+     * @return Relatório de progresso.
+     * @throws Exception O intervalo informado é inválido.
+     */
+    private static Progress getProgress(CommandLine line, Statistics statistics) throws Exception {
+        File status = line.hasOption("status") ? new File(line.getOptionValue("status")) : null;
+        return new Progress(statistics, getInteger(line, "progress", 5), true, status);
+    }
+
+    /**
+     * Obtém a política de resolução de conflitos a partir da linha de comando.
+     * @param line Linha de comando.
+     * @return Política de resolução de conflitos.
+     * @throws Exception O valor informado é inválido.
+     */
+    private static Policy getPolicy(CommandLine line) throws Exception {
+        if (!line.hasOption("policy")) {
+            return Policy.KEEP;
+        }
+        try {
+            return Policy.valueOf(line.getOptionValue("policy").trim().toUpperCase());
+        } catch (IllegalArgumentException exception) {
+            throw new Exception(Messages.getMessage("INVALID_VALUE", line.getOptionValue("policy"), "policy"));
+        }
+    }
+
+    /**
+     * Obtém o mecanismo de busca a partir da linha de comando.
+     * @param line Linha de comando.
+     * @return Mecanismo de busca.
+     * @throws Exception O valor informado é inválido.
+     */
+    private static Engine getEngine(CommandLine line) throws Exception {
+        if (!line.hasOption("engine")) {
+            return Engine.MEMORY;
+        }
+        try {
+            return Engine.valueOf(line.getOptionValue("engine").trim().toUpperCase());
+        } catch (IllegalArgumentException exception) {
+            throw new Exception(Messages.getMessage("INVALID_VALUE", line.getOptionValue("engine"), "engine"));
+        }
     }
 
     /**
@@ -0,0 +1,175 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementa uma árvore BK sobre um dicionário de palavras, permitindo obter
+ * as palavras a uma distância de edição limitada da consulta sem compará-la
+ * com todo o dicionário. Pela desigualdade triangular, apenas os filhos cuja
+ * distância ao nó corrente difere da distância da consulta em no máximo o
+ * limite informado precisam ser visitados.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class BKTree {
+
+    private Node root;
+    private int size;
+
+    /**
+     * Adiciona uma palavra à árvore, caso ainda não esteja presente.
+     * @param word Palavra.
+     */
+    public void add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(node.word, word, Integer.MAX_VALUE);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Obtém as palavras a uma distância de edição de no máximo o limite
+     * informado.
+     * @param word Palavra de consulta.
+     * @param limit Distância máxima.
+     * @return Lista de palavras.
+     */
+    public List<String> search(String word, int limit) {
+        List<String> result = new ArrayList<>();
+        if (root == null) {
+            return result;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(node.word, word, Integer.MAX_VALUE);
+            if (distance <= limit) {
+                result.add(node.word);
+            }
+            for (Map.Entry<Integer, Node> entry : node.children.entrySet()) {
+                if (Math.abs(entry.getKey() - distance) <= limit) {
+                    pending.push(entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Obtém a quantidade de palavras da árvore.
+     * @return Quantidade de palavras.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calcula a distância de Levenshtein entre duas palavras, interrompendo o
+     * cálculo assim que o limite informado for ultrapassado.
+     * @param first Primeira palavra.
+     * @param second Segunda palavra.
+     * @param limit Distância máxima de interesse.
+     * @return Distância entre as palavras, ou um valor maior que o limite
+     * caso este seja ultrapassado.
+     */
+    public static int distance(String first, String second, int limit) {
+        if (Math.abs(first.length() - second.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            int minimum = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                minimum = Math.min(minimum, current[j]);
+            }
+            if (minimum > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[second.length()];
+    }
+
+    /**
+     * Representa um nó da árvore.
+     */
+    private static class Node {
+
+        private final String word;
+        private final Map<Integer, Node> children;
+
+        /**
+         * Construtor.
+         * @param word Palavra.
+         */
+        private Node(String word) {
+            this.word = word;
+            this.children = new HashMap<>();
+        }
+
+    }
+
+}
@@ -0,0 +1,210 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementa a codificação de publicações em uma única linha de texto, com os
+ * campos separados por tabulações. Barras invertidas, tabulações e quebras de
+ * linha são escapadas, e valores nulos são representados por '\N', de modo
+ * que a decodificação reproduz exatamente a publicação original, exceto pelas
+ * referências a arquivos, que não são codificadas. Coleções são precedidas
+ * pelo número de elementos. As datas de criação e modificação e o número de
+ * páginas ocupam os três últimos campos; linhas sem esses campos, gravadas
+ * por versões anteriores, são decodificadas com valores desconhecidos.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Codec {
+
+    private static final String NULL = "\\N";
+
+    /**
+     * Construtor privado.
+     */
+    private Codec() {
+        // quack
+    }
+
+    /**
+     * Codifica a publicação em uma linha de texto.
+     * @param publication Publicação.
+     * @return Linha de texto.
+     */
+    public static String encode(Publication publication) {
+        List<String> fields = new ArrayList<>();
+        fields.add(String.valueOf(publication.getIdentifier()));
+        fields.add(escape(publication.getTitle()));
+        encode(fields, publication.getAuthors());
+        encode(fields, publication.getTags());
+        fields.add(String.valueOf(publication.getCreated()));
+        fields.add(String.valueOf(publication.getModified()));
+        fields.add(String.valueOf(publication.getPages()));
+        return String.join("\t", fields);
+    }
+
+    /**
+     * Decodifica a publicação a partir de uma linha de texto.
+     * @param line Linha de texto.
+     * @return Publicação.
+     * @throws IllegalArgumentException A linha de texto é inválida.
+     */
+    public static Publication decode(String line) {
+        String[] fields = line.split("\t", -1);
+        try {
+            Publication publication = new Publication(Long.parseLong(fields[0]));
+            publication.setTitle(unescape(fields[1]));
+            int position = 2;
+            int count = Integer.parseInt(fields[position++]);
+            if (count >= 0) {
+                List<String> authors = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    authors.add(unescape(fields[position++]));
+                }
+                publication.setAuthors(authors);
+            }
+            count = Integer.parseInt(fields[position++]);
+            if (count >= 0) {
+                Set<String> tags = new HashSet<>();
+                for (int i = 0; i < count; i++) {
+                    tags.add(unescape(fields[position++]));
+                }
+                publication.setTags(tags);
+            }
+            if (position < fields.length) {
+                publication.setCreated(Long.parseLong(fields[position++]));
+                publication.setModified(Long.parseLong(fields[position++]));
+                publication.setPages(Integer.parseInt(fields[position++]));
+            }
+            if (position != fields.length) {
+                throw new IllegalArgumentException(line);
+            }
+            return publication;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+            throw new IllegalArgumentException(line, exception);
+        }
+    }
+
+    /**
+     * Escapa o texto informado para uso em um campo.
+     * @param text Texto, possivelmente nulo.
+     * @return Texto escapado.
+     */
+    public static String escape(String text) {
+        if (text == null) {
+            return NULL;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                default:
+                    result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Restaura o texto de um campo escapado.
+     * @param text Texto escapado.
+     * @return Texto original, possivelmente nulo.
+     * @throws IllegalArgumentException O texto é inválido.
+     */
+    public static String unescape(String text) {
+        if (NULL.equals(text)) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                result.append(c);
+            } else if (++i < text.length()) {
+                switch (text.charAt(i)) {
+                    case '\\':
+                        result.append('\\');
+                        break;
+                    case 't':
+                        result.append('\t');
+                        break;
+                    case 'n':
+                        result.append('\n');
+                        break;
+                    case 'r':
+                        result.append('\r');
+                        break;
+                    default:
+                        throw new IllegalArgumentException(text);
+                }
+            } else {
+                throw new IllegalArgumentException(text);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Acrescenta aos campos o número de elementos e os elementos escapados da
+     * coleção informada.
+     * @param fields Campos.
+     * @param values Coleção, possivelmente nula.
+     */
+    private static void encode(List<String> fields, Collection<String> values) {
+        if (values == null) {
+            fields.add("-1");
+        } else {
+            fields.add(String.valueOf(values.size()));
+            values.stream().map(Codec::escape).forEach(fields::add);
+        }
+    }
+
+}
@@ -32,23 +32,51 @@
  */
 package br.usp.poli.lta.cereda.tagger.model;
 
+import br.usp.poli.lta.cereda.tagger.scan.Checkpoint;
+import br.usp.poli.lta.cereda.tagger.scan.Manifest;
+import br.usp.poli.lta.cereda.tagger.scan.Scanner;
+import br.usp.poli.lta.cereda.tagger.scan.Settings;
+import br.usp.poli.lta.cereda.tagger.scan.Statistics;
+import br.usp.poli.lta.cereda.tagger.scan.Walker;
 import br.usp.poli.lta.cereda.tagger.utils.Utils;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.io.RandomAccessSource;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PdfDate;
 import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfStamper;
-import com.thoughtworks.xstream.XStream;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import org.apache.commons.io.FileUtils;
+import java.util.stream.Stream;
 import org.apache.commons.io.FilenameUtils;
 
 /**
@@ -57,78 +85,201 @@ import org.apache.commons.io.FilenameUtils;
  * @version 1.0
  * @since 1.0
  */
-public class Database {
+public class Database implements Closeable {
 
     private final Map<Long, Publication> mapping;
+    private final Index index;
     private final File location;
     private final boolean xml;
+    private final Settings settings;
+    private final Storage storage;
+    private final LuceneEngine engine;
+    private final QueryCache cache;
+    private final PathTable paths;
+    private final Map<Long, Long> fingerprints;
+    private long fingerprint;
 
     /**
      * Construtor.
      * @param location Arquivo a ser analisado.
      * @param xml Sinalizador que indica se o arquivo é XML.
+     * @throws IOException O arquivo XML existe, mas não pôde ser lido.
      */
-    public Database(File location, boolean xml) {
+    public Database(File location, boolean xml) throws IOException {
+        this(location, xml, new Settings());
+    }
+
+    /**
+     * Construtor.
+     * @param location Arquivo a ser analisado.
+     * @param xml Sinalizador que indica se o arquivo é XML.
+     * @param settings Configurações da análise de arquivos.
+     * @throws IOException O arquivo XML existe, mas não pôde ser lido.
+     */
+    public Database(File location, boolean xml, Settings settings) throws IOException {
+        this(location, xml, settings, new Statistics());
+    }
+
+    /**
+     * Construtor. Quando o local é um diretório de arquivos, o andamento da
+     * análise é registrado nas estatísticas informadas.
+     * @param location Arquivo a ser analisado.
+     * @param xml Sinalizador que indica se o arquivo é XML.
+     * @param settings Configurações da análise de arquivos.
+     * @param statistics Estatísticas da análise do diretório.
+     * @throws IOException O arquivo XML existe, mas não pôde ser lido.
+     */
+    public Database(File location, boolean xml, Settings settings, Statistics statistics) throws IOException {
         this.location = location;
         this.xml = xml;
+        this.settings = settings;
+        this.index = new Index();
+        this.cache = new QueryCache(settings.getCache());
+        this.paths = new PathTable();
+        this.fingerprints = new HashMap<>();
         if (this.xml) {
-            this.mapping = loadFromXML();
+            this.storage = Storage.of(location);
+            this.mapping = loadFromStorage();
+            this.engine = settings.getEngine() == Engine.LUCENE ? openEngine() : null;
         } else {
-            this.mapping = loadFromReference();
+            this.storage = null;
+            this.engine = null;
+            this.mapping = loadFromReference(statistics);
+            this.mapping.values().stream().forEach(index::add);
         }
+        index.compact();
     }
 
     /**
-     * Carrega o mapa de publicações a partir de um arquivo XML.
+     * Carrega o mapa de publicações a partir do armazenamento do banco de
+     * dados, indexando cada publicação à medida que é lida.
      * @return Mapa contendo as publicações e seus respectivos identificadores.
+     * @throws IOException O armazenamento existe, mas não pôde ser lido.
      */
-    private Map<Long, Publication> loadFromXML() {
-        if (location.exists()) {
-            try {
-                XStream xstream = new XStream();
-                xstream.alias("publication", Publication.class);
-                xstream.omitField(Publication.class, "references");
-                return (Map<Long, Publication>) xstream.fromXML(location);
-            } catch (Exception exception) {
-                return new HashMap<>();
-            }
-        } else {
-            return new HashMap<>();
+    private Map<Long, Publication> loadFromStorage() throws IOException {
+        Map<Long, Publication> result = new HashMap<>();
+        storage.load((Long key, Publication publication) -> {
+            result.put(key, publication);
+            index.add(publication);
+        });
+        return result;
+    }
+
+    /**
+     * Abre o índice Lucene gravado ao lado do banco de dados, reconstruindo-o
+     * a partir do mapa de publicações caso não exista ou não corresponda ao
+     * conteúdo carregado do banco de dados.
+     * @return Mecanismo de busca.
+     * @throws IOException O índice não pôde ser aberto ou gravado.
+     */
+    private LuceneEngine openEngine() throws IOException {
+        mapping.values().stream().forEach(this::track);
+        LuceneEngine result = new LuceneEngine(new File(location.getPath().concat(".lucene")));
+        String stamp = stamp();
+        if (!stamp.equals(result.getStamp())) {
+            result.rebuild(mapping.values());
+            result.commit(stamp);
+        }
+        return result;
+    }
+
+    /**
+     * Obtém a marca do conteúdo indexado, composta pelo número de publicações
+     * e pela soma das impressões de cada publicação. A marca depende apenas
+     * das publicações carregadas e alteradas por este processo, e não do
+     * arquivo do banco de dados, de modo que o índice nunca recebe a marca de
+     * um conteúdo que não indexou.
+     * @return Marca do conteúdo indexado.
+     */
+    private String stamp() {
+        return fingerprints.size() + ":" + Long.toHexString(fingerprint);
+    }
+
+    /**
+     * Registra a impressão da publicação na marca do conteúdo indexado,
+     * substituindo a impressão anterior de mesmo identificador.
+     * @param publication Publicação.
+     */
+    private void track(Publication publication) {
+        long value = fingerprint(publication);
+        Long previous = fingerprints.put(publication.getIdentifier(), value);
+        fingerprint += value - (previous == null ? 0 : previous);
+    }
+
+    /**
+     * Remove a impressão da publicação da marca do conteúdo indexado.
+     * @param identifier Identificador da publicação.
+     */
+    private void untrack(long identifier) {
+        Long previous = fingerprints.remove(identifier);
+        if (previous != null) {
+            fingerprint -= previous;
         }
     }
 
+    /**
+     * Calcula a impressão dos campos indexados de uma publicação, pelo
+     * algoritmo FNV-1a de 64 bits.
+     * @param publication Publicação.
+     * @return Impressão da publicação.
+     */
+    private static long fingerprint(Publication publication) {
+        StringBuilder content = new StringBuilder();
+        content.append(publication.getIdentifier()).append('\n');
+        content.append(publication.getTitleKey()).append('\n');
+        new TreeSet<>(publication.getTagKeys()).forEach((String t) -> content.append(t).append('\t'));
+        content.append('\n');
+        publication.getAuthorKeys().forEach((String t) -> content.append(t).append('\t'));
+        content.append('\n');
+        content.append(publication.getCreated()).append('\n');
+        content.append(publication.getModified()).append('\n');
+        content.append(publication.getPages());
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < content.length(); i++) {
+            hash ^= content.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
     /**
      * Sincroniza as publicações com os arquivos correspondentes em um
      * diretório informado.
      * @param directory Diretório contendo arquivos referentes às publicações.
+     * @throws IOException A análise foi interrompida.
      */
-    public void synchronizePublications(File directory) {
-        Map<Long, Set<File>> references = new HashMap<>();
-        Collection<File> files = FileUtils.listFiles(directory, new String[]{"pdf", "PDF"}, true);
-        long identifier;
-        for (File file : files) {
-            try {
-                identifier = Utils.calculateChecksum(file);
-                if (mapping.containsKey(identifier)) {
-                    if (!references.containsKey(identifier)) {
-                        references.put(identifier, new HashSet<>());
-                    }
-                    references.get(identifier).add(file);
-                }
-            } catch (Exception exception) {
-                // quack
+    public void synchronizePublications(File directory) throws IOException {
+        synchronizePublications(directory, new Statistics());
+    }
+
+    /**
+     * Sincroniza as publicações com os arquivos correspondentes em um
+     * diretório informado, registrando o andamento nas estatísticas.
+     * @param directory Diretório contendo arquivos referentes às publicações.
+     * @param statistics Estatísticas da análise.
+     * @throws IOException A análise foi interrompida.
+     */
+    public void synchronizePublications(File directory, Statistics statistics) throws IOException {
+        Map<Long, References> references = new HashMap<>();
+        scan(directory, false, (File file, Publication publication) -> {
+            long identifier = publication.getIdentifier();
+            if (mapping.containsKey(identifier)) {
+                references.computeIfAbsent(identifier, (Long t) -> new References(paths)).add(file);
             }
-        }
+        }, statistics);
         references.keySet().stream().forEach((key) -> {
             mapping.get(key).setReferences(references.get(key));
         });
+        discardCheckpoint();
     }
 
     /**
      * Carrega o mapa de publicações a partir de um diretório contendo arquivos.
+     * @param statistics Estatísticas da análise.
      * @return Mapa de publicações e seus respectivos identificadores.
+     * @throws IOException A análise foi interrompida.
      */
-    private Map<Long, Publication> loadFromReference() {
+    private Map<Long, Publication> loadFromReference(Statistics statistics) throws IOException {
         Map<Long, Publication> analysis = new HashMap<>();
         if (!location.isDirectory()) {
             try {
@@ -137,46 +288,365 @@ public class Database {
                 // quack
             }
         } else {
-            Collection<File> files = FileUtils.listFiles(location, new String[]{"pdf", "PDF"}, true);
-            files.stream().forEach((file) -> {
+            scan(location, true, (File file, Publication publication) -> {
+                analysis.putIfAbsent(publication.getIdentifier(), publication);
+            }, statistics);
+            discardCheckpoint();
+        }
+        return analysis;
+    }
+
+    /**
+     * Indexa os arquivos PDF do diretório informado no mapa de publicações,
+     * extraindo os metadados em paralelo e gravando o banco de dados uma única
+     * vez ao final.
+     * @param directory Diretório contendo os arquivos PDF.
+     * @param policy Política de resolução de conflitos com publicações
+     * existentes.
+     * @param statistics Estatísticas da análise.
+     * @throws IOException A análise foi interrompida ou o banco de dados não
+     * pôde ser gravado.
+     */
+    public void ingest(File directory, Policy policy, Statistics statistics) throws IOException {
+        Map<Long, Publication> found = new HashMap<>();
+        scan(directory, true, (File file, Publication publication) -> {
+            found.putIfAbsent(publication.getIdentifier(), publication);
+        }, statistics);
+        found.values().stream().forEach((Publication publication) -> {
+            publication.cleanCollections();
+            merge(publication, policy, statistics);
+        });
+        if (xml) {
+            commit();
+        }
+        discardCheckpoint();
+    }
+
+    /**
+     * Analisa os arquivos PDF do diretório informado, gravando as publicações
+     * obtidas em um arquivo parcial, no formato do diário de análise, a ser
+     * posteriormente combinado a um banco de dados. Um arquivo parcial
+     * existente é substituído.
+     * @param directory Diretório contendo os arquivos PDF.
+     * @param partial Arquivo parcial.
+     * @param settings Configurações da análise.
+     * @param statistics Estatísticas da análise.
+     * @throws IOException A análise foi interrompida ou o arquivo parcial não
+     * pôde ser gravado.
+     */
+    public static void export(File directory, File partial, Settings settings, Statistics statistics) throws IOException {
+        Files.deleteIfExists(partial.toPath());
+        scan(directory, true, settings, partial, true, (File file, Publication publication) -> {
+        }, statistics);
+    }
+
+    /**
+     * Combina os arquivos parciais informados ao mapa de publicações,
+     * gravando o banco de dados uma única vez ao final. O resultado independe
+     * da ordem dos arquivos parciais: entre registros de um mesmo
+     * identificador, prevalece o do menor caminho, e conflitos com
+     * publicações existentes são resolvidos de acordo com a política
+     * informada.
+     * @param partials Arquivos parciais.
+     * @param policy Política de resolução de conflitos com publicações
+     * existentes.
+     * @param statistics Estatísticas da combinação.
+     * @throws IOException Um arquivo parcial é inválido ou o banco de dados
+     * não pôde ser gravado.
+     */
+    public void absorb(Collection<File> partials, Policy policy, Statistics statistics) throws IOException {
+        Map<Long, Publication> found = new TreeMap<>();
+        Map<Long, String> origins = new HashMap<>();
+        for (File partial : partials) {
+            Checkpoint.read(partial, "metadata", (File file, Publication publication) -> {
+                statistics.discovered(file);
+                String origin = origins.get(publication.getIdentifier());
+                if (origin == null || file.getPath().compareTo(origin) < 0) {
+                    found.put(publication.getIdentifier(), publication);
+                    origins.put(publication.getIdentifier(), file.getPath());
+                }
+            });
+        }
+        statistics.walked();
+        found.values().stream().forEach((Publication publication) -> {
+            publication.cleanCollections();
+            merge(publication, policy, statistics);
+        });
+        if (xml) {
+            commit();
+        }
+    }
+
+    /**
+     * Renomeia, combina e remove etiquetas em todas as publicações, gravando o
+     * banco de dados uma única vez ao final. Apenas as publicações que possuem
+     * alguma das etiquetas afetadas, obtidas pelo índice de etiquetas, são
+     * analisadas. As regras são aplicadas em uma única passagem sobre as
+     * etiquetas originais, sem encadeamento; várias etiquetas renomeadas para
+     * o mesmo nome são combinadas. As etiquetas são comparadas na forma
+     * normalizada, mas os novos nomes são gravados como informados, sem os
+     * espaços das extremidades.
+     * @param renames Mapa de etiquetas originais e respectivos novos nomes.
+     * @param removals Etiquetas a serem removidas.
+     * @param statistics Estatísticas da operação.
+     * @return Lista das publicações modificadas.
+     * @throws IOException O banco de dados não pôde ser gravado.
+     */
+    public List<Publication> retag(Map<String, String> renames, Set<String> removals, Statistics statistics) throws IOException {
+        Map<String, String> rules = new HashMap<>();
+        renames.forEach((String key, String value) -> rules.put(Index.normalizeTag(key), value.trim()));
+        Set<String> drops = removals.stream().map(Index::normalizeTag).collect(Collectors.toSet());
+        Set<String> affected = new HashSet<>(rules.keySet());
+        affected.addAll(drops);
+        List<Publication> result = new ArrayList<>();
+        for (Long id : new TreeSet<>(index.searchTags(affected))) {
+            Publication publication = mapping.get(id);
+            Map<String, String> kept = new HashMap<>();
+            for (String tag : publication.getTags()) {
+                String key = Index.normalizeTag(tag);
+                if (drops.contains(key)) {
+                    continue;
+                }
+                if (rules.containsKey(key)) {
+                    String value = rules.get(key);
+                    kept.put(Index.normalizeTag(value), value);
+                } else {
+                    kept.putIfAbsent(key, tag);
+                }
+            }
+            Set<String> tags = new HashSet<>(kept.values());
+            if (tags.equals(publication.getTags())) {
+                statistics.kept();
+            } else {
+                publication.setTags(tags);
+                store(publication);
+                result.add(publication);
+                statistics.updated();
+            }
+        }
+        if (xml && !result.isEmpty()) {
+            commit();
+        }
+        return result;
+    }
+
+    /**
+     * Insere a publicação no mapa de publicações, resolvendo um eventual
+     * conflito com a publicação existente de acordo com a política informada.
+     * @param publication Publicação.
+     * @param policy Política de resolução de conflitos.
+     * @param statistics Estatísticas da análise.
+     */
+    private void merge(Publication publication, Policy policy, Statistics statistics) {
+        Publication existing = mapping.get(publication.getIdentifier());
+        if (existing == null) {
+            store(publication);
+            statistics.added();
+        } else if (policy == Policy.REPLACE) {
+            store(publication);
+            statistics.updated();
+        } else if (policy == Policy.MERGE) {
+            Publication result = Publication.blank();
+            result.setIdentifier(existing.getIdentifier());
+            result.setTitle(existing.getTitle() == null || existing.getTitle().isEmpty() ? publication.getTitle() : existing.getTitle());
+            Set<String> authors = new LinkedHashSet<>(existing.getAuthors());
+            authors.addAll(publication.getAuthors());
+            result.setAuthors(new ArrayList<>(authors));
+            Set<String> tags = new HashSet<>(existing.getTags());
+            tags.addAll(publication.getTags());
+            result.setTags(tags);
+            result.setCreated(existing.getCreated() == 0 ? publication.getCreated() : existing.getCreated());
+            result.setModified(existing.getModified() == 0 ? publication.getModified() : existing.getModified());
+            result.setPages(existing.getPages() == 0 ? publication.getPages() : existing.getPages());
+            result.setReferences(existing.getReferences());
+            if (result.getTitle().equals(existing.getTitle()) && result.getAuthors().equals(existing.getAuthors()) && result.getTags().equals(existing.getTags()) && result.getCreated() == existing.getCreated() && result.getModified() == existing.getModified() && result.getPages() == existing.getPages()) {
+                statistics.kept();
+            } else {
+                store(result);
+                statistics.updated();
+            }
+        } else {
+            statistics.kept();
+        }
+    }
+
+    /**
+     * Analisa em paralelo os arquivos PDF do diretório informado, entregando
+     * ao consumidor, na thread corrente, a publicação obtida de cada arquivo.
+     * Caso as configurações indiquem um diário, cada publicação obtida é nele
+     * registrada, e os arquivos já registrados e não modificados desde então
+     * são entregues diretamente, sem nova análise.
+     * @param directory Diretório.
+     * @param metadata Sinalizador que indica se os metadados devem ser
+     * extraídos; caso contrário, apenas o identificador é calculado.
+     * @param consumer Consumidor dos arquivos e publicações.
+     * @param statistics Estatísticas da análise.
+     * @throws IOException A análise foi interrompida ou o diário não pôde ser
+     * gravado.
+     */
+    private void scan(File directory, boolean metadata, BiConsumer<File, Publication> consumer, Statistics statistics) throws IOException {
+        scan(directory, metadata, settings, settings.getCheckpoint(), false, consumer, statistics);
+    }
+
+    /**
+     * Analisa em paralelo os arquivos PDF do diretório informado, entregando
+     * ao consumidor, na thread corrente, a publicação obtida de cada arquivo,
+     * e registrando cada publicação no diário informado, caso exista.
+     * @param directory Diretório.
+     * @param metadata Sinalizador que indica se os metadados devem ser
+     * extraídos; caso contrário, apenas o identificador é calculado.
+     * @param settings Configurações da análise.
+     * @param journal Arquivo do diário, ou nulo.
+     * @param sealed Sinalizador que indica se o diário deve ser selado ao
+     * final de uma análise concluída.
+     * @param consumer Consumidor dos arquivos e publicações.
+     * @param statistics Estatísticas da análise.
+     * @throws IOException A análise foi interrompida ou o diário não pôde ser
+     * gravado.
+     */
+    private static void scan(File directory, boolean metadata, Settings settings, File journal, boolean sealed, BiConsumer<File, Publication> consumer, Statistics statistics) throws IOException {
+        Scanner.Task<Publication> task;
+        if (metadata) {
+            task = (File file, Publication publication) -> readMetadata(file, Utils.calculateChecksum(file));
+        } else {
+            task = (File file, Publication publication) -> new Publication(Utils.calculateChecksum(file));
+        }
+        if (journal == null) {
+            try (Scanner<Publication> scanner = new Scanner<>(settings, task, consumer, statistics)) {
+                new Walker(settings).walk(directory, scanner::submit, statistics);
+                scanner.finish();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            return;
+        }
+        try (Checkpoint checkpoint = new Checkpoint(journal, metadata ? "metadata" : "checksum")) {
+            try (Scanner<Publication> scanner = new Scanner<>(settings, task, (File file, Publication publication) -> {
                 try {
-                    long id = Utils.calculateChecksum(file);
-                    if (!analysis.containsKey(id)) {
-                        analysis.put(id, extractMetadata(file));
+                    checkpoint.put(file, publication);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+                consumer.accept(file, publication);
+            }, statistics)) {
+                new Walker(settings).walk(directory, (File file) -> {
+                    Publication publication = checkpoint.get(file);
+                    if (publication == null) {
+                        scanner.submit(file);
+                    } else {
+                        statistics.discovered(file);
+                        statistics.processed(file);
+                        consumer.accept(file, publication);
                     }
-                } catch (Exception exception) {
-                    // quack
+                }, statistics);
+                scanner.finish();
+            }
+            if (sealed) {
+                checkpoint.seal();
+            }
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Remove o diário da análise, caso exista, após a conclusão da operação
+     * que o utilizou.
+     * @throws IOException O diário não pôde ser removido.
+     */
+    private void discardCheckpoint() throws IOException {
+        if (settings.getCheckpoint() != null) {
+            Files.deleteIfExists(settings.getCheckpoint().toPath());
+        }
+    }
+
+    /**
+     * Torna permanentes, no armazenamento do banco de dados, as alterações
+     * feitas no mapa de publicações.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    private void commit() throws IOException {
+        storage.commit();
+        if (engine != null) {
+            engine.commit(stamp());
+        }
+    }
+
+    /**
+     * Insere ou substitui a publicação no mapa de publicações, no índice e no
+     * armazenamento do banco de dados.
+     * @param publication Publicação.
+     */
+    private void store(Publication publication) {
+        Index.Entry before = index.getEntry(publication.getIdentifier());
+        mapping.put(publication.getIdentifier(), publication);
+        index.add(publication);
+        cache.invalidate(before, index.getEntry(publication.getIdentifier()));
+        if (storage != null) {
+            try {
+                storage.put(publication);
+                if (engine != null) {
+                    engine.put(publication);
+                    track(publication);
                 }
-            });
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
         }
-        return analysis;
     }
 
     /**
-     * Realiza a gravação efetiva do mapa de publicações em um arquivo XML.
+     * Remove a publicação do mapa de publicações, do índice e do
+     * armazenamento do banco de dados.
+     * @param identifier Identificador da publicação.
      */
-    private void commit() {
+    private void discard(long identifier) {
+        Index.Entry before = index.getEntry(identifier);
+        mapping.remove(identifier);
+        index.remove(identifier);
+        cache.invalidate(before, null);
+        if (storage != null) {
+            try {
+                storage.remove(identifier);
+                if (engine != null) {
+                    engine.remove(identifier);
+                    untrack(identifier);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    /**
+     * Fecha o armazenamento do banco de dados e o índice Lucene, caso exista,
+     * descartando as alterações que não foram gravadas.
+     * @throws IOException O armazenamento não pôde ser fechado.
+     */
+    @Override
+    public void close() throws IOException {
         try {
-            XStream xstream = new XStream();
-            xstream.alias("publication", Publication.class);
-            xstream.omitField(Publication.class, "references");
-            xstream.toXML(mapping, new FileWriter(location));
-        } catch (Exception exception) {
-            // quack
+            if (storage != null) {
+                storage.close();
+            }
+        } finally {
+            if (engine != null) {
+                engine.close();
+            }
         }
     }
 
     /**
      * Atualiza a publicação informada no mapa de publicações.
      * @param publication Publicação a ser atualizada no mapa de publicações.
+     * @throws IOException O banco de dados não pôde ser gravado.
      */
-    public void update(Publication publication) {
-        long id = publication.getIdentifier();
-        if (mapping.containsKey(id)) {
-            mapping.replace(id, publication);
-        } else {
-            mapping.put(id, publication);
-        }
+    public void update(Publication publication) throws IOException {
+        store(publication);
         if (xml) {
             commit();
         }
@@ -185,12 +655,10 @@ public class Database {
     /**
      * Remove a publicação informada do mapa de publicações.
      * @param publication Publicação a ser removida do mapa de publicações.
+     * @throws IOException O banco de dados não pôde ser gravado.
      */
-    public void remove(Publication publication) {
-        long id = publication.getIdentifier();
-        if (mapping.containsKey(id)) {
-            mapping.remove(id);
-        }
+    public void remove(Publication publication) throws IOException {
+        discard(publication.getIdentifier());
         if (xml) {
             commit();
         }
@@ -202,7 +670,8 @@ public class Database {
      * @return Subconjunto do mapa contendo as etiquetas informadas.
      */
     public Set<Publication> searchTags(Set<String> tags) {
-        return mapping.values().stream().filter((Publication t) -> t.hasAnyTags(tags)).collect(Collectors.toCollection(HashSet::new));
+        Set<String> keys = normalize(tags, Index::normalizeTag);
+        return resolve(cache.get("tags\n" + describe(keys), QueryCache.membership(QueryCache.tags(keys)), () -> Collections.unmodifiableSet(engine == null ? index.searchTags(keys) : engine.searchTags(keys))));
     }
 
     /**
@@ -211,7 +680,20 @@ public class Database {
      * @return Subconjunto do mapa contendo os autores informados.
      */
     public Set<Publication> searchAuthors(Set<String> authors) {
-        return mapping.values().stream().filter((Publication t) -> t.hasAnyAuthors(authors)).collect(Collectors.toCollection(HashSet::new));
+        return searchAuthors(authors, -1);
+    }
+
+    /**
+     * Busca por autores no mapa de publicações, tolerando erros de digitação
+     * em cada palavra dos nomes.
+     * @param authors Conjunto de autores.
+     * @param distance Distância de edição máxima por palavra.
+     * @return Subconjunto do mapa contendo os autores aproximados.
+     */
+    public Set<Publication> searchAuthors(Set<String> authors, int distance) {
+        Set<String> terms = normalize(authors, Index::normalizeAuthor);
+        int limit = Math.max(-1, distance);
+        return resolve(cache.get("authors\n" + limit + "\n" + describe(terms), QueryCache.membership(QueryCache.authors(terms, limit)), () -> Collections.unmodifiableSet(engine == null ? index.searchAuthors(terms, limit) : engine.searchAuthors(terms, limit))));
     }
 
     /**
@@ -234,8 +716,209 @@ public class Database {
      * @return Subconjunto do mapa contendo os autores e etiquetas informados.
      */
     public Set<Publication> searchAuthorsWithTags(Set<String> authors, Set<String> tags) {
-        List<Publication> people = mapping.values().stream().filter((Publication t) -> t.hasAnyAuthors(authors)).collect(Collectors.toList());
-        return people.stream().filter((Publication t) -> t.hasAnyTags(tags)).collect(Collectors.toCollection(HashSet::new));
+        return searchAuthorsWithTags(authors, tags, -1);
+    }
+
+    /**
+     * Busca por autores e etiquetas no mapa de publicações, tolerando erros
+     * de digitação em cada palavra dos nomes dos autores.
+     * @param authors Conjunto de autores.
+     * @param tags Conjunto de etiquetas.
+     * @param distance Distância de edição máxima por palavra, ou um valor
+     * negativo para a busca exata.
+     * @return Subconjunto do mapa contendo os autores e etiquetas informados.
+     */
+    public Set<Publication> searchAuthorsWithTags(Set<String> authors, Set<String> tags, int distance) {
+        Set<String> terms = normalize(authors, Index::normalizeAuthor);
+        Set<String> keys = normalize(tags, Index::normalizeTag);
+        int limit = Math.max(-1, distance);
+        return resolve(cache.get("both\n" + limit + "\n" + describe(terms) + "\n" + describe(keys), QueryCache.membership(QueryCache.authors(terms, limit).and(QueryCache.tags(keys))), () -> {
+            if (engine != null) {
+                return Collections.unmodifiableSet(engine.searchAuthorsWithTags(terms, keys, limit));
+            }
+            Set<Long> people = index.searchAuthors(terms, limit);
+            people.retainAll(index.searchTags(keys));
+            return Collections.unmodifiableSet(people);
+        }));
+    }
+
+    /**
+     * Busca as publicações cujos títulos correspondem à consulta informada.
+     * @param query Consulta, com termos, frases entre aspas e prefixos
+     * terminados em asterisco.
+     * @return Conjunto de publicações.
+     */
+    public Set<Publication> searchTitle(String query) {
+        String key = Keys.fold(query);
+        return resolve(cache.get("title\n" + key, QueryCache.title(key), () -> Collections.unmodifiableSet(engine == null ? index.searchTitle(key) : engine.searchTitle(key))));
+    }
+
+    /**
+     * Busca as publicações cujas datas de criação e modificação e número de
+     * páginas correspondem ao filtro de intervalos informado.
+     * @param filter Filtro de intervalos.
+     * @return Conjunto de publicações.
+     */
+    public Set<Publication> searchRange(Filter filter) {
+        return resolve(cache.get("range\n" + filter, QueryCache.membership(QueryCache.filter(filter)), () -> Collections.unmodifiableSet(engine == null ? index.searchRange(filter) : engine.searchRange(filter))));
+    }
+
+    /**
+     * Restringe o resultado de uma busca às publicações que correspondem ao
+     * filtro de intervalos informado. Resultados menores do que a estimativa
+     * do filtro são verificados publicação a publicação; os demais são
+     * intersectados com a busca por intervalos.
+     * @param publications Conjunto de publicações.
+     * @param filter Filtro de intervalos.
+     * @return Subconjunto das publicações que correspondem ao filtro.
+     */
+    public Set<Publication> restrict(Set<Publication> publications, Filter filter) {
+        if (publications.size() <= index.countRange(filter)) {
+            return publications.stream().filter(filter::matches).collect(Collectors.toCollection(HashSet::new));
+        }
+        Set<Publication> result = searchRange(filter);
+        result.retainAll(publications);
+        return result;
+    }
+
+    /**
+     * Busca as publicações mais relevantes para as etiquetas e autores
+     * informados, em ordem decrescente de relevância.
+     * @param tags Conjunto de etiquetas, ou nulo.
+     * @param authors Conjunto de autores, ou nulo.
+     * @param distance Distância de edição máxima por palavra dos autores, ou
+     * um valor negativo para a busca exata.
+     * @param limit Número máximo de publicações.
+     * @return Lista de publicações e respectivas pontuações.
+     */
+    public List<Map.Entry<Publication, Double>> rank(Set<String> tags, Set<String> authors, int distance, int limit) {
+        return rank(tags, authors, distance, limit, null);
+    }
+
+    /**
+     * Busca as publicações mais relevantes para as etiquetas e autores
+     * informados, restritas às publicações que correspondem ao filtro de
+     * intervalos, em ordem decrescente de relevância.
+     * @param tags Conjunto de etiquetas, ou nulo.
+     * @param authors Conjunto de autores, ou nulo.
+     * @param distance Distância de edição máxima por palavra dos autores, ou
+     * um valor negativo para a busca exata.
+     * @param limit Número máximo de publicações.
+     * @param filter Filtro de intervalos, ou nulo.
+     * @return Lista de publicações e respectivas pontuações.
+     */
+    public List<Map.Entry<Publication, Double>> rank(Set<String> tags, Set<String> authors, int distance, int limit, Filter filter) {
+        Set<String> keys = tags == null ? null : normalize(tags, Index::normalizeTag);
+        Set<String> terms = authors == null ? null : normalize(authors, Index::normalizeAuthor);
+        int threshold = Math.max(-1, distance);
+        String key = "rank\n" + threshold + "\n" + limit + "\n" + (keys == null ? "-" : describe(keys)) + "\n" + (terms == null ? "-" : describe(terms)) + "\n" + (filter == null ? "-" : filter);
+        List<Map.Entry<Long, Double>> result = cache.get(key, QueryCache.ANY, () -> Collections.unmodifiableList(engine == null ? index.rank(keys, terms, threshold, limit, filter) : engine.rank(keys, terms, threshold, limit, filter)));
+        return result.stream().map((Map.Entry<Long, Double> t) -> new SimpleImmutableEntry<Publication, Double>(mapping.get(t.getKey()), t.getValue())).collect(Collectors.toList());
+    }
+
+    /**
+     * Conta as publicações de cada etiqueta, opcionalmente restritas ao
+     * resultado de uma busca por etiquetas, autores ou ambos. As contagens são
+     * obtidas do índice, sem acesso às publicações.
+     * @param tags Conjunto de etiquetas da busca, ou nulo.
+     * @param authors Conjunto de autores da busca, ou nulo.
+     * @param limit Número máximo de etiquetas, ou zero para todas.
+     * @return Lista de etiquetas e respectivas contagens, em ordem decrescente
+     * de contagem.
+     */
+    public List<Map.Entry<String, Integer>> facets(Set<String> tags, Set<String> authors, int limit) {
+        Set<Long> restriction = null;
+        if (tags != null) {
+            restriction = index.searchTags(tags);
+        }
+        if (authors != null) {
+            if (restriction == null) {
+                restriction = index.searchAuthors(authors);
+            } else {
+                restriction.retainAll(index.searchAuthors(authors));
+            }
+        }
+        return index.label(Index.top(index.countTags(restriction), limit));
+    }
+
+    /**
+     * Completa uma etiqueta a partir do vocabulário da base de dados.
+     * @param prefix Prefixo da etiqueta.
+     * @param limit Número máximo de etiquetas, ou zero para todas.
+     * @return Lista de etiquetas, em ordem alfabética, e respectivas
+     * contagens de publicações.
+     */
+    public List<Map.Entry<String, Integer>> completeTag(String prefix, int limit) {
+        return index.completeTag(prefix, limit);
+    }
+
+    /**
+     * Sugere etiquetas existentes para uma publicação, a partir das
+     * categorias de suas etiquetas hierárquicas (por exemplo, as etiquetas
+     * iniciadas por {@code nlp/} para uma publicação com a etiqueta
+     * {@code nlp/parsing}).
+     * @param publication Publicação.
+     * @param limit Número máximo de etiquetas.
+     * @return Conjunto ordenado de etiquetas sugeridas.
+     */
+    public Set<String> suggestTags(Publication publication, int limit) {
+        Set<String> result = new TreeSet<>();
+        if (publication.getTags() != null) {
+            publication.getTags().stream().map(Index::normalizeTag).filter((String t) -> t.contains("/")).map((String t) -> t.substring(0, t.lastIndexOf('/') + 1)).distinct().forEach((String prefix) -> {
+                index.completeTag(prefix, limit).forEach((Map.Entry<String, Integer> t) -> result.add(t.getKey()));
+            });
+            result.removeAll(publication.getTags());
+        }
+        return result.stream().limit(limit).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Obtém as etiquetas que mais ocorrem juntamente com a etiqueta informada.
+     * @param tag Etiqueta.
+     * @param limit Número máximo de etiquetas, ou zero para todas.
+     * @return Lista de etiquetas e respectivas contagens, em ordem decrescente
+     * de contagem.
+     */
+    public List<Map.Entry<String, Integer>> cooccurrences(String tag, int limit) {
+        return index.label(Index.top(index.countCooccurrences(tag), limit));
+    }
+
+    /**
+     * Obtém o cache de consultas do banco de dados, com suas métricas de
+     * acertos, faltas, descartes e invalidações.
+     * @return Cache de consultas.
+     */
+    public QueryCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Normaliza os termos de uma consulta, descartando repetições.
+     * @param terms Termos.
+     * @param normalizer Normalização dos termos.
+     * @return Conjunto ordenado de termos normalizados.
+     */
+    private static Set<String> normalize(Set<String> terms, Function<String, String> normalizer) {
+        return terms.stream().map(normalizer).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Descreve um conjunto ordenado de termos normalizados, para compor a
+     * chave de uma consulta no cache.
+     * @param terms Conjunto ordenado de termos.
+     * @return Descrição dos termos.
+     */
+    private static String describe(Set<String> terms) {
+        return String.join("\u0000", terms);
+    }
+
+    /**
+     * Obtém as publicações referentes aos identificadores informados.
+     * @param identifiers Conjunto de identificadores.
+     * @return Conjunto de publicações.
+     */
+    private Set<Publication> resolve(Set<Long> identifiers) {
+        return identifiers.stream().map(mapping::get).collect(Collectors.toCollection(HashSet::new));
     }
 
     /**
@@ -258,41 +941,325 @@ public class Database {
      * @return Publicação gerada a partir dos metadados do arquivo PDF.
      */
     private Publication extractMetadata(File file) {
-        try (FileInputStream input = new FileInputStream(file)) {
-            PdfReader reader = new PdfReader(input);
+        try {
+            return readMetadata(file, Utils.calculateChecksum(file));
+        } catch (Exception exception) {
+            return Publication.blank();
+        }
+    }
+
+    /**
+     * Lê os metadados do arquivo PDF em uma publicação.
+     * @param file Arquivo PDF.
+     * @param identifier Identificador da publicação.
+     * @return Publicação gerada a partir dos metadados do arquivo PDF.
+     * @throws IOException O arquivo não pôde ser lido.
+     */
+    private static Publication readMetadata(File file, long identifier) throws IOException {
+        PdfReader reader = openReader(file);
+        try {
             HashMap<String, String> info = reader.getInfo();
-            reader.close();
-            Publication publication = new Publication(Utils.calculateChecksum(file));
+            Publication publication = new Publication(identifier);
             publication.setTitle(info.getOrDefault("Title", ""));
             publication.setAuthorsFromString(info.getOrDefault("Author", ""));
             publication.setTagsFromString(info.getOrDefault("Keywords", ""));
+            publication.setCreated(parseDate(info.get("CreationDate")));
+            publication.setModified(parseDate(info.get("ModDate")));
+            publication.setPages(reader.getNumberOfPages());
             publication.sanitize();
             return publication;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Converte uma data PDF (por exemplo, {@code D:20160314120000-03'00'})
+     * em milissegundos.
+     * @param date Data PDF, possivelmente nula.
+     * @return Data em milissegundos, ou zero caso ausente ou inválida.
+     */
+    private static long parseDate(String date) {
+        if (date == null) {
+            return 0;
+        }
+        Calendar calendar = PdfDate.decode(date);
+        return calendar == null ? 0 : calendar.getTimeInMillis();
+    }
+
+    /**
+     * Abre o arquivo PDF em modo de leitura parcial, no qual apenas a tabela
+     * de referências cruzadas e os objetos efetivamente consultados são lidos.
+     * As leituras são interrompidas caso a thread corrente seja interrompida.
+     * @param file Arquivo PDF.
+     * @return Leitor do arquivo PDF.
+     * @throws IOException O arquivo não pôde ser lido.
+     */
+    private static PdfReader openReader(File file) throws IOException {
+        return new PdfReader(new RandomAccessFileOrArray(new Guard(new RandomAccessSourceFactory().createBestSource(file.getAbsolutePath()))), null);
+    }
+
+    /**
+     * Gera um novo arquivo PDF contendo os metadados informados, ou atualiza o
+     * próprio arquivo original.
+     * @param from Arquivo PDF original.
+     * @param to Novo arquivo PDF, ou nulo para atualizar o arquivo original.
+     * @param info Mapa de metadados.
+     * @param append Sinalizador que indica o uso de atualização incremental.
+     * @return Valor lógico indicando o sucesso ou falha da operação de geração.
+     */
+    private static boolean writePDF(File from, File to, HashMap<String, String> info, boolean append) {
+        try {
+            if (to == null) {
+                replacePDF(from, info, append);
+            } else {
+                stampPDF(from, to, info, append);
+            }
+            return true;
         } catch (Exception exception) {
-            return Publication.blank();
+            return false;
         }
     }
 
     /**
-     * Gera um novo arquivo PDF contendo os metadados informados.
+     * Gera um novo arquivo PDF contendo os metadados informados. O arquivo
+     * original é lido em modo parcial, de modo que apenas os objetos em cópia
+     * são mantidos em memória. Na atualização incremental, o conteúdo original
+     * é copiado sem alterações e apenas o novo dicionário de metadados e uma
+     * nova seção de referências cruzadas são acrescentados ao final.
      * @param from Arquivo PDF original.
      * @param to Novo arquivo PDF.
      * @param info Mapa de metadados.
-     * @return Valor lógico indicando o sucesso ou falha da operação de geração.
+     * @param append Sinalizador que indica o uso de atualização incremental.
+     * @throws IOException O arquivo não pôde ser gerado.
      */
-    private static boolean writePDF(File from, File to, HashMap<String, String> info) {
-        try (FileInputStream input = new FileInputStream(from); FileOutputStream output = new FileOutputStream(to)) {
-            PdfReader reader = new PdfReader(input);
-            PdfStamper stamper = new PdfStamper(reader, output);
+    private static void stampPDF(File from, File to, HashMap<String, String> info, boolean append) throws IOException {
+        PdfReader reader = openReader(from);
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(to), 65536)) {
+            PdfStamper stamper = new PdfStamper(reader, output, '\0', append && !reader.isRebuilt());
             stamper.setMoreInfo(info);
             stamper.close();
+        } catch (DocumentException exception) {
+            throw new IOException(exception.getMessage(), exception);
+        } finally {
             reader.close();
+        }
+    }
+
+    /**
+     * Acrescenta ao final do próprio arquivo PDF uma atualização incremental
+     * contendo os metadados informados, sem regravar o conteúdo existente. Em
+     * caso de falha, o arquivo é truncado de volta ao tamanho original.
+     * @param file Arquivo PDF.
+     * @param info Mapa de metadados.
+     * @return Valor lógico indicando se a atualização incremental foi possível;
+     * documentos reconstruídos pelo leitor, por conterem erros estruturais,
+     * não admitem atualização incremental.
+     * @throws IOException O arquivo não pôde ser atualizado.
+     */
+    private static boolean appendPDF(File file, HashMap<String, String> info) throws IOException {
+        long length = file.length();
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(new RandomAccessSourceFactory().setUsePlainRandomAccess(true).createBestSource(file.getAbsolutePath())), null);
+        try {
+            if (reader.isRebuilt()) {
+                return false;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                try {
+                    channel.position(length);
+                    OutputStream output = new BufferedOutputStream(new Tail(Channels.newOutputStream(channel), length), 65536);
+                    PdfStamper stamper = new PdfStamper(reader, output, '\0', true);
+                    stamper.setMoreInfo(info);
+                    stamper.close();
+                    channel.force(true);
+                } catch (IOException | DocumentException | RuntimeException exception) {
+                    channel.truncate(length);
+                    throw new IOException(exception.getMessage(), exception);
+                }
+            }
             return true;
-        } catch (Exception exception) {
-            return false;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Grava os metadados informados no próprio arquivo PDF. Na atualização
+     * incremental, apenas os novos objetos são acrescentados ao final do
+     * arquivo; caso contrário, o novo conteúdo é gerado em um arquivo
+     * temporário no mesmo diretório, sincronizado com o disco e então
+     * renomeado atomicamente sobre o arquivo original, que permanece intacto
+     * em caso de falha.
+     * @param file Arquivo PDF.
+     * @param info Mapa de metadados.
+     * @param append Sinalizador que indica o uso de atualização incremental.
+     * @throws IOException O arquivo não pôde ser atualizado.
+     */
+    private static void replacePDF(File file, HashMap<String, String> info, boolean append) throws IOException {
+        if (append && appendPDF(file, info)) {
+            return;
+        }
+        Path target = file.getAbsoluteFile().toPath();
+        Path temporary = Files.createTempFile(target.getParent(), ".".concat(target.getFileName().toString()), ".tmp");
+        try {
+            stampPDF(file, temporary.toFile(), info, false);
+            Utils.sync(temporary);
+            Utils.replaceFile(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Grava os metadados da publicação no próprio arquivo PDF informado.
+     * @param file Arquivo PDF.
+     * @param publication Publicação.
+     * @param append Sinalizador que indica o uso de atualização incremental.
+     * @throws IOException O arquivo não pôde ser atualizado.
+     */
+    public static void stamp(File file, Publication publication, boolean append) throws IOException {
+        replacePDF(file, toInfo(publication), append);
+    }
+
+    /**
+     * Grava em paralelo os metadados dos registros do manifesto informado nos
+     * respectivos arquivos PDF.
+     * @param manifest Manifesto.
+     * @param settings Configurações da análise.
+     * @param statistics Estatísticas da análise.
+     * @throws IOException O manifesto é inválido ou a análise foi
+     * interrompida.
+     */
+    public static void stampManifest(Manifest manifest, Settings settings, Statistics statistics) throws IOException {
+        Scanner<Publication> scanner = new Scanner<>(settings, (File file, Publication publication) -> {
+            stamp(file, publication, settings.isAppend());
+            return publication;
+        }, (File file, Publication publication) -> {
+        }, statistics, false);
+        try {
+            try {
+                Publication publication;
+                while ((publication = manifest.next()) != null) {
+                    scanner.submit(publication.getReferences().iterator().next(), publication);
+                }
+                statistics.walked();
+            } finally {
+                scanner.finish();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
         }
     }
 
+    /**
+     * Grava em paralelo os metadados de cada publicação em todos os arquivos
+     * PDF a ela associados por uma sincronização prévia. Como o identificador
+     * de uma publicação é derivado do conteúdo do arquivo, as publicações são
+     * reindexadas pelos novos identificadores, e o banco de dados é gravado uma
+     * única vez ao final. Publicações com arquivos não atualizados mantêm
+     * também o identificador original, associado apenas a esses arquivos, de
+     * modo que nenhum arquivo seja referenciado por duas publicações.
+     * @param statistics Estatísticas da análise.
+     * @throws IOException A análise foi interrompida ou o banco de dados não
+     * pôde ser gravado.
+     */
+    public void stampReferences(Statistics statistics) throws IOException {
+        Map<File, Long> sources = new HashMap<>();
+        Map<Long, Publication> results = new HashMap<>();
+        Scanner<Publication> scanner = new Scanner<>(settings, (File file, Publication publication) -> {
+            stamp(file, publication, settings.isAppend());
+            return derive(publication, Utils.calculateChecksum(file), file);
+        }, (File file, Publication publication) -> {
+            Publication existing = results.putIfAbsent(publication.getIdentifier(), publication);
+            if (existing != null) {
+                existing.getReferences().add(file);
+            }
+        }, statistics, false);
+        try {
+            try {
+                for (Publication publication : new ArrayList<>(mapping.values())) {
+                    if (publication.getReferences() != null) {
+                        for (File file : publication.getReferences()) {
+                            sources.put(file, publication.getIdentifier());
+                            scanner.submit(file, publication);
+                        }
+                    }
+                }
+                statistics.walked();
+            } finally {
+                scanner.finish();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        Set<File> pending = Stream.concat(statistics.getFailures().keySet().stream(), statistics.getSkips().keySet().stream()).collect(Collectors.toSet());
+        Set<Long> failed = pending.stream().map(sources::get).collect(Collectors.toSet());
+        sources.values().stream().distinct().forEach((Long t) -> {
+            if (failed.contains(t)) {
+                Publication publication = mapping.get(t);
+                References remaining = new References(publication.getReferences().getTable());
+                publication.getReferences().forEach((File file) -> {
+                    if (pending.contains(file)) {
+                        remaining.add(file);
+                    }
+                });
+                publication.setReferences(remaining);
+            } else {
+                discard(t);
+            }
+        });
+        results.values().stream().forEach((Publication publication) -> {
+            Publication existing = mapping.get(publication.getIdentifier());
+            if (existing != null && existing.getReferences() != null) {
+                existing.getReferences().forEach(publication.getReferences()::add);
+            }
+            store(publication);
+        });
+        if (xml) {
+            commit();
+        }
+    }
+
+    /**
+     * Cria uma cópia da publicação com um novo identificador. A data de
+     * modificação passa a ser a do arquivo, cujos metadados acabaram de ser
+     * gravados.
+     * @param publication Publicação original.
+     * @param identifier Novo identificador.
+     * @param file Arquivo referente à nova publicação.
+     * @return Nova publicação.
+     */
+    private Publication derive(Publication publication, long identifier, File file) {
+        Publication result = new Publication(identifier);
+        result.setTitle(publication.getTitle());
+        result.setAuthors(new ArrayList<>(publication.getAuthors()));
+        result.setTags(new HashSet<>(publication.getTags()));
+        result.setCreated(publication.getCreated());
+        result.setModified(file.lastModified());
+        result.setPages(publication.getPages());
+        result.setReferences(new References(publication.getReferences() == null ? paths : publication.getReferences().getTable()));
+        result.getReferences().add(file);
+        return result;
+    }
+
+    /**
+     * Constrói o mapa de metadados PDF referente à publicação.
+     * @param publication Publicação.
+     * @return Mapa de metadados.
+     */
+    private static HashMap<String, String> toInfo(Publication publication) {
+        HashMap<String, String> info = new HashMap<>();
+        info.put("Author", publication.getAuthors().isEmpty() ? "" : publication.getFlattenedAuthors());
+        info.put("Title", publication.getTitle());
+        info.put("Keywords", publication.getTags().isEmpty() ? "" : publication.getFlattenedTags());
+        info.put("Subject", "");
+        info.put("Creator", "");
+        info.put("Producer", "");
+        return info;
+    }
+
     /**
      * Atualiza o arquivo PDF com os novos metadados.
      * @param file Arquivo PDF.
@@ -300,20 +1267,33 @@ public class Database {
      * atualização do arquivo PDF.
      */
     public boolean updatePDF(File file) {
+        return updatePDF(file, false, false);
+    }
+
+    /**
+     * Atualiza o arquivo PDF com os novos metadados.
+     * @param file Arquivo PDF.
+     * @param append Sinalizador que indica o uso de atualização incremental.
+     * @param inplace Sinalizador que indica que o próprio arquivo deve ser
+     * atualizado, em vez de um novo arquivo com o sufixo '(tagged)'.
+     * @return Valor lógico indicando o sucesso ou falha da operação de
+     * atualização do arquivo PDF.
+     */
+    public boolean updatePDF(File file, boolean append, boolean inplace) {
         try {
             long identifier = Utils.calculateChecksum(file);
             if (mapping.containsKey(identifier)) {
                 Publication publication = mapping.get(identifier);
-                File update = new File((file.getAbsoluteFile().getParent() == null ? "" : file.getAbsoluteFile().getParent()).concat(File.separator).concat(FilenameUtils.getBaseName(file.getAbsolutePath()).concat(" (tagged).pdf")));
-                HashMap<String, String> info = new HashMap<>();
-                info.put("Author", publication.getFlattenedAuthors());
-                info.put("Title", publication.getTitle());
-                info.put("Keywords", publication.getFlattenedTags());
-                info.put("Subject", "");
-                info.put("Creator", "");
-                info.put("Producer", "");
+                File update = inplace ? null : new File((file.getAbsoluteFile().getParent() == null ? "" : file.getAbsoluteFile().getParent()).concat(File.separator).concat(FilenameUtils.getBaseName(file.getAbsolutePath()).concat(" (tagged).pdf")));
+                HashMap<String, String> info = toInfo(publication);
                 System.out.println(info);
-                return writePDF(file, update, info);
+                if (!writePDF(file, update, info, append)) {
+                    return false;
+                }
+                if (inplace) {
+                    rekey(identifier, file);
+                }
+                return true;
             } else {
                 return false;
             }
@@ -322,6 +1302,41 @@ public class Database {
         }
     }
 
+    /**
+     * Reindexa a publicação após a atualização do próprio arquivo PDF, cujo
+     * conteúdo, e portanto o identificador, foi alterado. A publicação
+     * original é descartada, ou mantida apenas com os demais arquivos que
+     * ainda a referenciam, e uma cópia é armazenada sob o novo identificador.
+     * @param identifier Identificador original da publicação.
+     * @param file Arquivo PDF atualizado.
+     * @throws IOException O banco de dados não pôde ser gravado.
+     */
+    private void rekey(long identifier, File file) throws IOException {
+        long checksum = Utils.calculateChecksum(file);
+        Publication publication = mapping.get(identifier);
+        if (checksum == identifier || publication == null) {
+            return;
+        }
+        Publication result = derive(publication, checksum, file);
+        References remaining = new References(result.getReferences().getTable());
+        if (publication.getReferences() != null) {
+            publication.getReferences().forEach((File t) -> {
+                if (!t.getAbsoluteFile().equals(file.getAbsoluteFile())) {
+                    remaining.add(t);
+                }
+            });
+        }
+        if (remaining.isEmpty()) {
+            discard(identifier);
+        } else {
+            publication.setReferences(remaining);
+        }
+        store(result);
+        if (xml) {
+            commit();
+        }
+    }
+
     /**
      * Remove os metadados existentes do arquivo PDF informando, substituindo-os
      * por um mapa vazio.
@@ -329,7 +1344,20 @@ public class Database {
      * @return Valor lógico indicando sucesso ou falha da operação de remoção.
      */
     public static boolean removeDataFromPDF(File file) {
-        File update = new File((file.getAbsoluteFile().getParent() == null ? "" : file.getAbsoluteFile().getParent()).concat(File.separator).concat(FilenameUtils.getBaseName(file.getAbsolutePath()).concat(" (untagged).pdf")));
+        return removeDataFromPDF(file, false, false);
+    }
+
+    /**
+     * Remove os metadados existentes do arquivo PDF informando, substituindo-os
+     * por um mapa vazio.
+     * @param file Arquivo PDF.
+     * @param append Sinalizador que indica o uso de atualização incremental.
+     * @param inplace Sinalizador que indica que o próprio arquivo deve ser
+     * atualizado, em vez de um novo arquivo com o sufixo '(untagged)'.
+     * @return Valor lógico indicando sucesso ou falha da operação de remoção.
+     */
+    public static boolean removeDataFromPDF(File file, boolean append, boolean inplace) {
+        File update = inplace ? null : new File((file.getAbsoluteFile().getParent() == null ? "" : file.getAbsoluteFile().getParent()).concat(File.separator).concat(FilenameUtils.getBaseName(file.getAbsolutePath()).concat(" (untagged).pdf")));
         HashMap<String, String> info = new HashMap<>();
         info.put("Author", "");
         info.put("Title", "");
@@ -337,7 +1365,7 @@ public class Database {
         info.put("Subject", "");
         info.put("Creator", "");
         info.put("Producer", "");
-        return writePDF(file, update, info);
+        return writePDF(file, update, info, append);
     }
 
     /**
@@ -348,4 +1376,141 @@ public class Database {
         return (mapping.size() != 1 ? Publication.blank() : mapping.get(mapping.keySet().iterator().next()));
     }
 
+    /**
+     * Implementa um fluxo de saída que descarta um número inicial de bytes,
+     * usado para acrescentar ao arquivo original apenas a atualização
+     * incremental, uma vez que o iText sempre copia o conteúdo original para
+     * o fluxo de saída antes de gravar os novos objetos.
+     */
+    private static class Tail extends OutputStream {
+
+        private final OutputStream output;
+        private long skip;
+
+        /**
+         * Construtor.
+         * @param output Fluxo de saída efetivo.
+         * @param skip Número de bytes a descartar.
+         */
+        Tail(OutputStream output, long skip) {
+            this.output = output;
+            this.skip = skip;
+        }
+
+        /**
+         * Grava um byte no fluxo de saída.
+         * @param value Byte.
+         * @throws IOException Exceção de entrada e saída.
+         */
+        @Override
+        public void write(int value) throws IOException {
+            if (skip > 0) {
+                skip--;
+            } else {
+                output.write(value);
+            }
+        }
+
+        /**
+         * Grava um trecho de um arranjo de bytes no fluxo de saída.
+         * @param buffer Arranjo de bytes.
+         * @param offset Posição inicial.
+         * @param length Número de bytes.
+         * @throws IOException Exceção de entrada e saída.
+         */
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            int discarded = (int) Math.min(skip, length);
+            skip -= discarded;
+            if (length > discarded) {
+                output.write(buffer, offset + discarded, length - discarded);
+            }
+        }
+
+        /**
+         * Descarrega o fluxo de saída efetivo, sem fechá-lo.
+         * @throws IOException Exceção de entrada e saída.
+         */
+        @Override
+        public void close() throws IOException {
+            output.flush();
+        }
+
+    }
+
+    /**
+     * Implementa uma fonte de acesso aleatório que falha assim que a thread
+     * corrente é interrompida, permitindo cancelar a leitura de um arquivo PDF
+     * que excedeu os limites de tempo ou de memória da análise, uma vez que o
+     * iText não verifica interrupções.
+     */
+    private static class Guard implements RandomAccessSource {
+
+        private final RandomAccessSource source;
+
+        /**
+         * Construtor.
+         * @param source Fonte de acesso aleatório efetiva.
+         */
+        Guard(RandomAccessSource source) {
+            this.source = source;
+        }
+
+        /**
+         * Lê um byte da posição informada.
+         * @param position Posição.
+         * @return Byte lido, ou -1 ao final da fonte.
+         * @throws IOException Exceção de entrada e saída.
+         */
+        @Override
+        public int get(long position) throws IOException {
+            check();
+            return source.get(position);
+        }
+
+        /**
+         * Lê um trecho da fonte a partir da posição informada.
+         * @param position Posição.
+         * @param buffer Arranjo de bytes.
+         * @param offset Posição inicial no arranjo.
+         * @param length Número de bytes.
+         * @return Número de bytes lidos, ou -1 ao final da fonte.
+         * @throws IOException Exceção de entrada e saída.
+         */
+        @Override
+        public int get(long position, byte[] buffer, int offset, int length) throws IOException {
+            check();
+            return source.get(position, buffer, offset, length);
+        }
+
+        /**
+         * Obtém o tamanho da fonte.
+         * @return Número de bytes.
+         */
+        @Override
+        public long length() {
+            return source.length();
+        }
+
+        /**
+         * Fecha a fonte efetiva.
+         * @throws IOException Exceção de entrada e saída.
+         */
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+
+        /**
+         * Verifica se a thread corrente foi interrompida.
+         * @throws IOException A thread corrente foi interrompida.
+         */
+        private static void check() throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException();
+            }
+        }
+
+    }
+
 }
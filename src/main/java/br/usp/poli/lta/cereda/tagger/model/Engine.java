@@ -0,0 +1,53 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+/**
+ * Define os mecanismos de busca disponíveis para um banco de dados.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public enum Engine {
+
+    /**
+     * Busca nos índices mantidos em memória.
+     */
+    MEMORY,
+
+    /**
+     * Busca em um índice Lucene gravado ao lado do banco de dados.
+     */
+    LUCENE
+
+}
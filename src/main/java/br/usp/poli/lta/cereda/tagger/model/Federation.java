@@ -0,0 +1,182 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import br.usp.poli.lta.cereda.tagger.scan.Settings;
+import br.usp.poli.lta.cereda.tagger.utils.Messages;
+import java.io.File;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementa a busca federada sobre várias bases de dados. As bases são
+ * carregadas e consultadas em paralelo, limitadas ao número de threads de
+ * trabalho configurado, de modo que o tempo total se aproxima do tempo da
+ * base mais lenta, e não da soma dos tempos, sem que um grande número de
+ * bases seja carregado na memória ao mesmo tempo. Os resultados são
+ * combinados por identificador de publicação, registrando as bases em que
+ * cada publicação foi encontrada.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Federation {
+
+    private final List<File> sources;
+    private final Settings settings;
+
+    /**
+     * Construtor.
+     * @param sources Lista de bases de dados.
+     * @param settings Configurações das bases de dados.
+     */
+    public Federation(List<File> sources, Settings settings) {
+        this.sources = sources;
+        this.settings = settings;
+    }
+
+    /**
+     * Obtém as bases de dados a partir de uma lista separada por
+     * ponto-e-vírgula, na qual cada item é um banco de dados ou um diretório
+     * contendo bancos de dados (arquivos '.xml', '.xml.gz', '.mv' ou
+     * '.mv.db').
+     * @param text Lista de bases de dados.
+     * @return Lista de bases de dados, sem repetições.
+     */
+    public static List<File> resolve(String text) {
+        Set<File> result = new TreeSet<>();
+        for (String item : text.split(";")) {
+            if (item.trim().isEmpty()) {
+                continue;
+            }
+            File file = new File(item.trim());
+            if (file.isDirectory()) {
+                File[] files = file.listFiles((File t) -> t.isFile() && t.getName().toLowerCase().matches(".*\\.(xml|xml\\.gz|mv|mv\\.db)$"));
+                if (files != null) {
+                    result.addAll(Arrays.asList(files));
+                }
+            } else {
+                result.add(file);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Verifica se o texto informado descreve mais de uma base de dados, ou
+     * seja, uma lista separada por ponto-e-vírgula ou um diretório.
+     * @param text Lista de bases de dados.
+     * @return Valor lógico indicando se a busca deve ser federada.
+     */
+    public static boolean isFederated(String text) {
+        return text.contains(";") || new File(text.trim()).isDirectory();
+    }
+
+    /**
+     * Converte um conjunto de publicações sem ordenação em uma lista de
+     * publicações com pontuação nula.
+     * @param publications Conjunto de publicações.
+     * @return Lista de publicações e respectivas pontuações.
+     */
+    public static List<Map.Entry<Publication, Double>> unranked(Collection<Publication> publications) {
+        return publications.stream().map((Publication t) -> new SimpleImmutableEntry<Publication, Double>(t, 0.0)).collect(Collectors.toList());
+    }
+
+    /**
+     * Executa a consulta em todas as bases de dados, em paralelo, com no
+     * máximo uma base por thread de trabalho configurada. A consulta
+     * fornece as publicações encontradas em uma base e respectivas
+     * pontuações; uma publicação encontrada em várias bases mantém a maior
+     * pontuação. O resultado é ordenado por pontuação decrescente e, em caso
+     * de empate, pela ordem em que as publicações foram encontradas.
+     * @param query Consulta aplicada a cada base de dados.
+     * @param limit Número máximo de publicações, ou zero para todas.
+     * @return Mapa ordenado de publicações e respectivas bases de origem.
+     * @throws Exception Uma das bases não pôde ser carregada ou consultada.
+     */
+    public Map<Publication, Set<File>> search(Function<Database, List<Map.Entry<Publication, Double>>> query, int limit) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(sources.size(), settings.getThreads())));
+        try {
+            List<Future<List<Map.Entry<Publication, Double>>>> futures = new ArrayList<>();
+            for (File source : sources) {
+                futures.add(executor.submit(() -> {
+                    try (Database database = new Database(source, true, settings)) {
+                        return query.apply(database);
+                    }
+                }));
+            }
+            Map<Publication, Double> scores = new LinkedHashMap<>();
+            Map<Publication, Set<File>> origins = new HashMap<>();
+            for (int i = 0; i < sources.size(); i++) {
+                List<Map.Entry<Publication, Double>> partial;
+                try {
+                    partial = futures.get(i).get();
+                } catch (ExecutionException exception) {
+                    throw new Exception(Messages.getMessage("FEDERATION_ERROR", sources.get(i).getAbsolutePath(), exception.getCause().getMessage()), exception.getCause());
+                }
+                for (Map.Entry<Publication, Double> entry : partial) {
+                    scores.merge(entry.getKey(), entry.getValue(), Math::max);
+                    origins.computeIfAbsent(entry.getKey(), (Publication t) -> new TreeSet<>()).add(sources.get(i));
+                }
+            }
+            List<Publication> order = new ArrayList<>(scores.keySet());
+            order.sort(Comparator.comparing(scores::get, Comparator.reverseOrder()));
+            Map<Publication, Set<File>> result = new LinkedHashMap<>();
+            for (Publication publication : order) {
+                if (limit > 0 && result.size() == limit) {
+                    break;
+                }
+                result.put(publication, origins.get(publication));
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+/**
+ * Define um filtro de publicações por intervalos de data de criação, data de
+ * modificação e número de páginas. Intervalos não informados não restringem
+ * a busca; publicações cujo valor é desconhecido não correspondem a um
+ * intervalo informado.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Filter {
+
+    private Range created;
+    private Range modified;
+    private Range pages;
+
+    /**
+     * Obtém o intervalo de datas de criação.
+     * @return Intervalo de datas, em milissegundos, ou nulo.
+     */
+    public Range getCreated() {
+        return created;
+    }
+
+    /**
+     * Define o intervalo de datas de criação.
+     * @param created Intervalo de datas, em milissegundos, ou nulo.
+     */
+    public void setCreated(Range created) {
+        this.created = created;
+    }
+
+    /**
+     * Obtém o intervalo de datas de modificação.
+     * @return Intervalo de datas, em milissegundos, ou nulo.
+     */
+    public Range getModified() {
+        return modified;
+    }
+
+    /**
+     * Define o intervalo de datas de modificação.
+     * @param modified Intervalo de datas, em milissegundos, ou nulo.
+     */
+    public void setModified(Range modified) {
+        this.modified = modified;
+    }
+
+    /**
+     * Obtém o intervalo de números de páginas.
+     * @return Intervalo de números de páginas, ou nulo.
+     */
+    public Range getPages() {
+        return pages;
+    }
+
+    /**
+     * Define o intervalo de números de páginas.
+     * @param pages Intervalo de números de páginas, ou nulo.
+     */
+    public void setPages(Range pages) {
+        this.pages = pages;
+    }
+
+    /**
+     * Verifica se nenhum intervalo foi informado.
+     * @return Valor lógico indicando se o filtro é vazio.
+     */
+    public boolean isEmpty() {
+        return created == null && modified == null && pages == null;
+    }
+
+    /**
+     * Verifica se os valores informados correspondem ao filtro. Valores
+     * desconhecidos são representados por zero.
+     * @param created Data de criação, em milissegundos.
+     * @param modified Data de modificação, em milissegundos.
+     * @param pages Número de páginas.
+     * @return Valor lógico indicando se os valores correspondem ao filtro.
+     */
+    public boolean matches(long created, long modified, long pages) {
+        return matches(this.created, created) && matches(this.modified, modified) && matches(this.pages, pages);
+    }
+
+    /**
+     * Verifica se a publicação informada corresponde ao filtro.
+     * @param publication Publicação.
+     * @return Valor lógico indicando se a publicação corresponde ao filtro.
+     */
+    public boolean matches(Publication publication) {
+        return matches(publication.getCreated(), publication.getModified(), publication.getPages());
+    }
+
+    /**
+     * Verifica se o valor pertence ao intervalo, caso informado.
+     * @param range Intervalo, ou nulo.
+     * @param value Valor, ou zero caso desconhecido.
+     * @return Valor lógico indicando se o valor corresponde ao intervalo.
+     */
+    private static boolean matches(Range range, long value) {
+        return range == null || (value != 0 && range.contains(value));
+    }
+
+    /**
+     * Obtém a representação textual do filtro.
+     * @return Representação textual do filtro.
+     */
+    @Override
+    public String toString() {
+        return "created=" + created + ";modified=" + modified + ";pages=" + pages;
+    }
+
+}
@@ -0,0 +1,676 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Implementa índices invertidos de etiquetas e autores, associando cada chave
+ * normalizada ao conjunto de identificadores das publicações que a contêm,
+ * além de índices de intervalos sobre as datas e o número de páginas.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Index {
+
+    private final Map<String, Set<Long>> tags;
+    private final Map<String, Set<Long>> authors;
+    private final Map<Long, Entry> entries;
+    private final Map<String, String> labels;
+    private final TagTrie vocabulary;
+    private final TitleIndex titles;
+    private final Map<String, Set<String>> names;
+    private BKTree lexicon;
+    private final RangeIndex created;
+    private final RangeIndex modified;
+    private final RangeIndex pages;
+
+    static final double TITLE_WEIGHT = 0.5;
+
+    /**
+     * Construtor.
+     */
+    public Index() {
+        this.tags = new HashMap<>();
+        this.authors = new HashMap<>();
+        this.entries = new HashMap<>();
+        this.labels = new HashMap<>();
+        this.vocabulary = new TagTrie();
+        this.titles = new TitleIndex();
+        this.names = new HashMap<>();
+        this.lexicon = new BKTree();
+        this.created = new RangeIndex();
+        this.modified = new RangeIndex();
+        this.pages = new RangeIndex();
+    }
+
+    /**
+     * Normaliza uma etiqueta para uso como chave do índice.
+     * @param tag Etiqueta.
+     * @return Etiqueta normalizada.
+     */
+    public static String normalizeTag(String tag) {
+        return Keys.fold(tag);
+    }
+
+    /**
+     * Normaliza um autor para uso como chave do índice.
+     * @param author Autor.
+     * @return Autor normalizado.
+     */
+    public static String normalizeAuthor(String author) {
+        return Keys.fold(author);
+    }
+
+    /**
+     * Adiciona a publicação ao índice, substituindo as chaves previamente
+     * associadas ao seu identificador.
+     * @param publication Publicação.
+     */
+    public void add(Publication publication) {
+        long id = publication.getIdentifier();
+        remove(id);
+        Entry entry = new Entry();
+        entry.tags = publication.getTagKeys().toArray(new String[0]);
+        entry.authors = publication.getAuthorKeys().toArray(new String[0]);
+        entry.words = words(publication.getTitleKey()).toArray(String[]::new);
+        entry.created = publication.getCreated();
+        entry.modified = publication.getModified();
+        entry.pages = publication.getPages();
+        for (String tag : entry.tags) {
+            tags.computeIfAbsent(tag, (String t) -> {
+                vocabulary.add(t);
+                labels.put(t, publication.getTags().stream().filter((String u) -> Keys.fold(u).equals(t)).findFirst().orElse(t));
+                return new HashSet<>();
+            }).add(id);
+        }
+        for (String author : entry.authors) {
+            authors.computeIfAbsent(author, (String t) -> {
+                for (String name : Keys.tokenize(t)) {
+                    names.computeIfAbsent(name, (String u) -> {
+                        lexicon.add(u);
+                        return new HashSet<>();
+                    }).add(t);
+                }
+                return new HashSet<>();
+            }).add(id);
+        }
+        if (entry.created != 0) {
+            created.add(id, entry.created);
+        }
+        if (entry.modified != 0) {
+            modified.add(id, entry.modified);
+        }
+        if (entry.pages != 0) {
+            pages.add(id, entry.pages);
+        }
+        entries.put(id, entry);
+        titles.add(id, publication.getTitleKey());
+    }
+
+    /**
+     * Remove do índice as chaves associadas ao identificador informado.
+     * @param id Identificador da publicação.
+     */
+    public void remove(long id) {
+        titles.remove(id);
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            for (String tag : entry.tags) {
+                if (detach(tags, tag, id)) {
+                    vocabulary.remove(tag);
+                    labels.remove(tag);
+                }
+            }
+            for (String author : entry.authors) {
+                if (detach(authors, author, id)) {
+                    for (String name : Keys.tokenize(author)) {
+                        Set<String> keys = names.get(name);
+                        if (keys != null && keys.remove(author) && keys.isEmpty()) {
+                            names.remove(name);
+                        }
+                    }
+                }
+            }
+            if (entry.created != 0) {
+                created.remove(id, entry.created);
+            }
+            if (entry.modified != 0) {
+                modified.remove(id, entry.modified);
+            }
+            if (entry.pages != 0) {
+                pages.remove(id, entry.pages);
+            }
+            if (lexicon.size() > 2 * names.size() + 1024) {
+                lexicon = new BKTree();
+                names.keySet().forEach(lexicon::add);
+            }
+        }
+    }
+
+    /**
+     * Obtém as chaves indexadas para a publicação informada.
+     * @param id Identificador da publicação.
+     * @return Chaves indexadas, ou nulo caso a publicação não esteja
+     * indexada.
+     */
+    Entry getEntry(long id) {
+        return entries.get(id);
+    }
+
+    /**
+     * Remove todas as entradas do índice.
+     */
+    public void clear() {
+        tags.clear();
+        authors.clear();
+        names.clear();
+        lexicon = new BKTree();
+        entries.clear();
+        vocabulary.clear();
+        labels.clear();
+        titles.clear();
+        created.clear();
+        modified.clear();
+        pages.clear();
+    }
+
+    /**
+     * Compacta os índices de intervalos, incorporando as inserções pendentes,
+     * após a carga em lote das publicações.
+     */
+    public void compact() {
+        created.compact();
+        modified.compact();
+        pages.compact();
+    }
+
+    /**
+     * Busca as publicações que correspondem a todos os intervalos do filtro
+     * informado. Apenas o intervalo de menor cardinalidade estimada é
+     * consultado no respectivo índice; os demais são verificados nas chaves
+     * indexadas de cada publicação encontrada.
+     * @param filter Filtro de intervalos.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchRange(Filter filter) {
+        RangeIndex best = null;
+        Range range = null;
+        int count = Integer.MAX_VALUE;
+        for (Map.Entry<RangeIndex, Range> candidate : ranges(filter)) {
+            int estimate = candidate.getKey().count(candidate.getValue().getMinimum(), candidate.getValue().getMaximum());
+            if (estimate < count) {
+                best = candidate.getKey();
+                range = candidate.getValue();
+                count = estimate;
+            }
+        }
+        if (best == null) {
+            return new HashSet<>();
+        }
+        Set<Long> result = best.search(range.getMinimum(), range.getMaximum());
+        result.removeIf((Long t) -> !matches(entries.get(t), filter));
+        return result;
+    }
+
+    /**
+     * Estima o número de publicações que correspondem ao filtro informado,
+     * a partir do intervalo de menor cardinalidade. A estimativa nunca é
+     * menor do que o número exato.
+     * @param filter Filtro de intervalos.
+     * @return Estimativa do número de publicações.
+     */
+    public int countRange(Filter filter) {
+        int count = Integer.MAX_VALUE;
+        for (Map.Entry<RangeIndex, Range> candidate : ranges(filter)) {
+            count = Math.min(count, candidate.getKey().count(candidate.getValue().getMinimum(), candidate.getValue().getMaximum()));
+        }
+        return count == Integer.MAX_VALUE ? 0 : count;
+    }
+
+    /**
+     * Associa cada intervalo informado no filtro ao respectivo índice.
+     * @param filter Filtro de intervalos.
+     * @return Lista de índices e respectivos intervalos.
+     */
+    private List<Map.Entry<RangeIndex, Range>> ranges(Filter filter) {
+        List<Map.Entry<RangeIndex, Range>> result = new ArrayList<>(3);
+        if (filter.getCreated() != null) {
+            result.add(new SimpleImmutableEntry<>(created, filter.getCreated()));
+        }
+        if (filter.getModified() != null) {
+            result.add(new SimpleImmutableEntry<>(modified, filter.getModified()));
+        }
+        if (filter.getPages() != null) {
+            result.add(new SimpleImmutableEntry<>(pages, filter.getPages()));
+        }
+        return result;
+    }
+
+    /**
+     * Verifica se as chaves indexadas de uma publicação correspondem ao
+     * filtro informado.
+     * @param entry Chaves indexadas, possivelmente nulas.
+     * @param filter Filtro de intervalos.
+     * @return Valor lógico indicando se a publicação corresponde ao filtro.
+     */
+    static boolean matches(Entry entry, Filter filter) {
+        return entry != null && filter.matches(entry.created, entry.modified, entry.pages);
+    }
+
+    /**
+     * Obtém os identificadores das publicações que possuem a etiqueta
+     * informada.
+     * @param tag Etiqueta.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> getTag(String tag) {
+        return Collections.unmodifiableSet(tags.getOrDefault(normalizeTag(tag), Collections.emptySet()));
+    }
+
+    /**
+     * Busca as publicações que possuem uma das etiquetas informadas. Uma
+     * etiqueta terminada em asterisco (por exemplo, {@code nlp/*}) é expandida
+     * para todas as etiquetas iniciadas pelo prefixo que a antecede.
+     * @param query Conjunto de etiquetas.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchTags(Set<String> query) {
+        Set<Long> result = new HashSet<>();
+        for (String key : expandTags(query)) {
+            result.addAll(tags.get(key));
+        }
+        return result;
+    }
+
+    /**
+     * Obtém as chaves indexadas correspondentes às etiquetas informadas,
+     * expandindo as etiquetas terminadas em asterisco.
+     * @param query Conjunto de etiquetas.
+     * @return Conjunto de chaves.
+     */
+    private Set<String> expandTags(Set<String> query) {
+        Set<String> result = new HashSet<>();
+        query.stream().map(Index::normalizeTag).distinct().forEach((String tag) -> {
+            if (tag.endsWith("*")) {
+                result.addAll(vocabulary.complete(tag.substring(0, tag.length() - 1), 0));
+            } else if (tags.containsKey(tag)) {
+                result.add(tag);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Busca as publicações cujos títulos correspondem à consulta informada.
+     * @param query Consulta, com termos, frases entre aspas e prefixos
+     * terminados em asterisco.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchTitle(String query) {
+        return titles.search(query);
+    }
+
+    /**
+     * Completa uma etiqueta a partir do vocabulário indexado.
+     * @param prefix Prefixo da etiqueta.
+     * @param limit Número máximo de etiquetas, ou zero para todas.
+     * @return Lista de etiquetas, em ordem alfabética, e respectivas
+     * contagens de publicações.
+     */
+    public List<Map.Entry<String, Integer>> completeTag(String prefix, int limit) {
+        List<Map.Entry<String, Integer>> result = new ArrayList<>();
+        for (String key : vocabulary.complete(normalizeTag(prefix), limit)) {
+            result.add(new SimpleImmutableEntry<>(labels.get(key), tags.get(key).size()));
+        }
+        return result;
+    }
+
+    /**
+     * Busca as publicações que possuem um dos autores informados. Assim como
+     * na busca sequencial, um autor corresponde à consulta se contiver um dos
+     * termos informados; a comparação, entretanto, é feita uma única vez por
+     * autor distinto, e não por publicação.
+     * @param query Conjunto de autores.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchAuthors(Set<String> query) {
+        return searchAuthors(query, -1);
+    }
+
+    /**
+     * Busca as publicações que possuem um dos autores informados, tolerando
+     * erros de digitação. Com distância não negativa, um autor corresponde à
+     * consulta se cada palavra de um dos termos informados estiver a no
+     * máximo a distância de edição informada de alguma palavra do nome do
+     * autor; com distância negativa, a busca é a mesma da busca exata.
+     * @param query Conjunto de autores.
+     * @param distance Distância de edição máxima por palavra, ou um valor
+     * negativo para a busca exata.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchAuthors(Set<String> query, int distance) {
+        Set<Long> result = new HashSet<>();
+        for (String key : expandAuthors(query, distance)) {
+            result.addAll(authors.get(key));
+        }
+        return result;
+    }
+
+    /**
+     * Obtém as chaves indexadas de autores que correspondem a um dos termos
+     * informados.
+     * @param query Conjunto de autores.
+     * @param distance Distância de edição máxima por palavra, ou um valor
+     * negativo para a busca exata.
+     * @return Conjunto de chaves.
+     */
+    private Set<String> expandAuthors(Set<String> query, int distance) {
+        String[] terms = query.stream().map(Keys::fold).distinct().toArray(String[]::new);
+        Set<String> result = new HashSet<>();
+        if (distance >= 0) {
+            for (String term : terms) {
+                result.addAll(approximate(term, distance));
+            }
+            return result;
+        }
+        for (String author : authors.keySet()) {
+            for (String term : terms) {
+                if (author.contains(term)) {
+                    result.add(author);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Obtém as chaves indexadas de autores cujos nomes possuem, para cada
+     * palavra do termo informado, uma palavra próxima. As palavras próximas
+     * são obtidas da árvore BK sobre as palavras dos nomes dos autores, que
+     * mantém as palavras descartadas até ser reconstruída na remoção; a
+     * distância é limitada à metade do comprimento de cada palavra do termo,
+     * de modo que palavras curtas não correspondam a qualquer nome.
+     * @param term Termo normalizado.
+     * @param distance Distância de edição máxima por palavra.
+     * @return Conjunto de chaves.
+     */
+    private Set<String> approximate(String term, int distance) {
+        Set<String> result = null;
+        for (String word : Keys.tokenize(term)) {
+            Set<String> partial = new HashSet<>();
+            for (String name : lexicon.search(word, Math.min(distance, (word.length() - 1) / 2))) {
+                partial.addAll(names.getOrDefault(name, Collections.emptySet()));
+            }
+            if (result == null) {
+                result = partial;
+            } else {
+                result.retainAll(partial);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? Collections.emptySet() : result;
+    }
+
+    /**
+     * Busca as publicações mais relevantes para as etiquetas e autores
+     * informados. Cada etiqueta ou autor correspondido soma à pontuação da
+     * publicação o inverso de sua frequência no índice, de modo que chaves
+     * raras pesam mais do que chaves comuns; cada termo da consulta presente
+     * no título da publicação soma um bônus fixo. Quando ambos os conjuntos
+     * são informados, apenas as publicações que correspondem a ambos são
+     * consideradas, tal como na busca sem ordenação.
+     * @param tags Conjunto de etiquetas, ou nulo.
+     * @param authors Conjunto de autores, ou nulo.
+     * @param distance Distância de edição máxima por palavra dos autores, ou
+     * um valor negativo para a busca exata.
+     * @param limit Número máximo de publicações.
+     * @return Lista de identificadores e respectivas pontuações, em ordem
+     * decrescente de pontuação.
+     */
+    public List<Map.Entry<Long, Double>> rank(Set<String> tags, Set<String> authors, int distance, int limit) {
+        return rank(tags, authors, distance, limit, null);
+    }
+
+    /**
+     * Busca as publicações mais relevantes para as etiquetas e autores
+     * informados, considerando apenas as publicações que correspondem ao
+     * filtro de intervalos.
+     * @param tags Conjunto de etiquetas, ou nulo.
+     * @param authors Conjunto de autores, ou nulo.
+     * @param distance Distância de edição máxima por palavra dos autores, ou
+     * um valor negativo para a busca exata.
+     * @param limit Número máximo de publicações.
+     * @param filter Filtro de intervalos, ou nulo.
+     * @return Lista de identificadores e respectivas pontuações, em ordem
+     * decrescente de pontuação.
+     */
+    public List<Map.Entry<Long, Double>> rank(Set<String> tags, Set<String> authors, int distance, int limit, Filter filter) {
+        Map<Long, Double> scores = null;
+        Set<String> terms = new HashSet<>();
+        if (tags != null) {
+            scores = score(this.tags, expandTags(tags));
+            tags.stream().map(Index::normalizeTag).forEach((String t) -> words(t).forEach(terms::add));
+        }
+        if (authors != null) {
+            Map<Long, Double> partial = score(this.authors, expandAuthors(authors, distance));
+            if (scores == null) {
+                scores = partial;
+            } else {
+                scores.keySet().retainAll(partial.keySet());
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + partial.get(entry.getKey()));
+                }
+            }
+            authors.stream().map(Index::normalizeAuthor).forEach((String t) -> words(t).forEach(terms::add));
+        }
+        if (scores == null) {
+            return new ArrayList<>();
+        }
+        if (filter != null && !filter.isEmpty()) {
+            scores.keySet().removeIf((Long t) -> !matches(entries.get(t), filter));
+        }
+        if (!terms.isEmpty()) {
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                int matches = 0;
+                for (String word : entries.get(entry.getKey()).words) {
+                    if (terms.contains(word)) {
+                        matches++;
+                    }
+                }
+                if (matches > 0) {
+                    entry.setValue(entry.getValue() + TITLE_WEIGHT * matches);
+                }
+            }
+        }
+        return top(scores, limit);
+    }
+
+    /**
+     * Soma, para cada publicação, o inverso da frequência das chaves
+     * informadas que ela possui.
+     * @param map Mapa de ocorrências.
+     * @param keys Conjunto de chaves.
+     * @return Mapa de identificadores e respectivas pontuações.
+     */
+    private Map<Long, Double> score(Map<String, Set<Long>> map, Set<String> keys) {
+        Map<Long, Double> result = new HashMap<>();
+        for (String key : keys) {
+            Set<Long> ids = map.get(key);
+            double weight = Math.log(1.0 + (double) entries.size() / ids.size());
+            for (Long id : ids) {
+                result.merge(id, weight, Double::sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Separa uma chave em palavras distintas, para comparação entre títulos e
+     * termos de consulta.
+     * @param key Chave de busca.
+     * @return Fluxo de palavras.
+     */
+    private static Stream<String> words(String key) {
+        return Keys.tokenize(key).stream().filter((String t) -> t.length() > 1).distinct();
+    }
+
+    /**
+     * Substitui as chaves de etiquetas pelas respectivas etiquetas exibidas,
+     * tal como foram informadas na primeira publicação indexada com a chave.
+     * @param counts Lista de chaves e respectivas contagens.
+     * @return Lista de etiquetas e respectivas contagens.
+     */
+    public List<Map.Entry<String, Integer>> label(List<Map.Entry<String, Integer>> counts) {
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(counts.size());
+        for (Map.Entry<String, Integer> entry : counts) {
+            result.add(new SimpleImmutableEntry<>(labels.getOrDefault(entry.getKey(), entry.getKey()), entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Conta as publicações de cada etiqueta. Sem restrição, as contagens são
+     * os tamanhos das listas de ocorrências; com restrição, apenas as
+     * etiquetas das publicações informadas são contadas.
+     * @param restriction Identificadores das publicações consideradas, ou
+     * nulo para todas as publicações.
+     * @return Mapa de etiquetas e respectivas contagens.
+     */
+    public Map<String, Integer> countTags(Set<Long> restriction) {
+        Map<String, Integer> result = new HashMap<>();
+        if (restriction == null) {
+            tags.forEach((String tag, Set<Long> ids) -> result.put(tag, ids.size()));
+        } else {
+            for (Long id : restriction) {
+                Entry entry = entries.get(id);
+                if (entry != null) {
+                    for (String tag : entry.tags) {
+                        result.merge(tag, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Conta as publicações em que cada etiqueta ocorre juntamente com a
+     * etiqueta informada, a partir das etiquetas das publicações da lista de
+     * ocorrências desta.
+     * @param tag Etiqueta.
+     * @return Mapa de etiquetas e respectivas contagens.
+     */
+    public Map<String, Integer> countCooccurrences(String tag) {
+        String key = normalizeTag(tag);
+        Map<String, Integer> result = countTags(tags.getOrDefault(key, Collections.emptySet()));
+        result.remove(key);
+        return result;
+    }
+
+    /**
+     * Obtém as chaves de maior contagem, em ordem decrescente de contagem e,
+     * em caso de empate, em ordem alfabética. Apenas as chaves selecionadas
+     * são ordenadas, por meio de uma fila de prioridade limitada.
+     * @param <K> Tipo das chaves.
+     * @param <V> Tipo das contagens.
+     * @param counts Mapa de chaves e respectivas contagens.
+     * @param limit Número máximo de chaves, ou zero para todas.
+     * @return Lista de chaves e respectivas contagens.
+     */
+    public static <K extends Comparable<K>, V extends Comparable<V>> List<Map.Entry<K, V>> top(Map<K, V> counts, int limit) {
+        Comparator<Map.Entry<K, V>> order = Map.Entry.<K, V>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+        if (limit <= 0 || limit >= counts.size()) {
+            List<Map.Entry<K, V>> result = new ArrayList<>(counts.entrySet());
+            result.sort(order);
+            return result;
+        }
+        PriorityQueue<Map.Entry<K, V>> queue = new PriorityQueue<>(limit + 1, order.reversed());
+        for (Map.Entry<K, V> entry : counts.entrySet()) {
+            queue.add(entry);
+            if (queue.size() > limit) {
+                queue.poll();
+            }
+        }
+        List<Map.Entry<K, V>> result = new ArrayList<>(queue);
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * Remove o identificador da lista de ocorrências da chave, descartando a
+     * chave quando não houver mais ocorrências.
+     * @param map Mapa de ocorrências.
+     * @param key Chave.
+     * @param id Identificador.
+     * @return Valor lógico indicando se a chave foi descartada.
+     */
+    private static boolean detach(Map<String, Set<Long>> map, String key, long id) {
+        Set<Long> ids = map.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                map.remove(key);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Registra as chaves indexadas para uma publicação.
+     */
+    static class Entry {
+        String[] tags;
+        String[] authors;
+        String[] words;
+        long created;
+        long modified;
+        int pages;
+    }
+
+}
@@ -0,0 +1,118 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calcula as chaves de busca de etiquetas, autores e títulos. Uma chave é o
+ * texto decomposto em compatibilidade (NFKD), sem marcas diacríticas, em
+ * minúsculas e com espaços consecutivos reduzidos a um único espaço, de modo
+ * que "João" e "joao" produzem a mesma chave. As chaves são calculadas uma
+ * única vez, na limpeza ou ingestão da publicação, e as buscas comparam
+ * apenas chaves.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Keys {
+
+    /**
+     * Construtor privado.
+     */
+    private Keys() {
+        // quack
+    }
+
+    /**
+     * Calcula a chave de busca de um texto.
+     * @param text Texto.
+     * @return Chave de busca.
+     */
+    public static String fold(String text) {
+        if (!Normalizer.isNormalized(text, Normalizer.Form.NFKD)) {
+            text = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                space = result.length() > 0;
+            } else if (!isMark(c)) {
+                if (space) {
+                    result.append(' ');
+                    space = false;
+                }
+                result.append(Character.toLowerCase(c));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Separa uma chave de busca em termos compostos apenas por letras e
+     * dígitos, na ordem em que ocorrem.
+     * @param key Chave de busca, previamente calculada.
+     * @return Lista de termos.
+     */
+    public static List<String> tokenize(String key) {
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= key.length(); i++) {
+            if (i < key.length() && Character.isLetterOrDigit(key.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                result.add(key.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Verifica se o caractere é uma marca combinante, como os acentos
+     * separados pela decomposição.
+     * @param c Caractere.
+     * @return Valor lógico indicando se o caractere é uma marca combinante.
+     */
+    private static boolean isMark(char c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK || type == Character.ENCLOSING_MARK;
+    }
+
+}
@@ -0,0 +1,281 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.io.InputStream;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Implementa a leitura incremental do banco de dados XML gravado pelo XStream,
+ * entregando cada publicação assim que o seu elemento é lido, sem materializar
+ * o documento inteiro em memória. Construções do XStream não previstas neste
+ * leitor resultam em exceção, para que o chamador recorra ao XStream.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Loader {
+
+    private static final Map.Entry<Long, Publication> END = new SimpleEntry<>(0L, null);
+
+    /**
+     * Construtor privado.
+     */
+    private Loader() {
+        // quack
+    }
+
+    /**
+     * Lê as publicações do fluxo informado na thread corrente.
+     * @param input Fluxo de entrada.
+     * @param consumer Consumidor das chaves e publicações lidas.
+     * @throws XMLStreamException O conteúdo não está no formato esperado.
+     */
+    public static void load(InputStream input, BiConsumer<Long, Publication> consumer) throws XMLStreamException {
+        XMLStreamReader reader = createReader(input);
+        try {
+            expect(reader, reader.nextTag(), "map");
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                expect(reader, XMLStreamConstants.START_ELEMENT, "entry");
+                expect(reader, reader.nextTag(), "long");
+                long key = parseLong(reader);
+                expect(reader, reader.nextTag(), "publication");
+                Publication publication = readPublication(reader);
+                if (reader.nextTag() != XMLStreamConstants.END_ELEMENT) {
+                    throw new XMLStreamException("unexpected element in entry", reader.getLocation());
+                }
+                consumer.accept(key, publication);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Lê as publicações do fluxo informado em uma thread dedicada, enquanto a
+     * thread corrente entrega as publicações ao consumidor, permitindo que a
+     * análise do XML e a construção dos índices ocorram em paralelo.
+     * @param input Fluxo de entrada.
+     * @param consumer Consumidor das chaves e publicações lidas.
+     * @param capacity Capacidade da fila entre as duas threads.
+     * @throws XMLStreamException O conteúdo não está no formato esperado.
+     * @throws InterruptedException A thread corrente foi interrompida.
+     */
+    public static void load(InputStream input, BiConsumer<Long, Publication> consumer, int capacity) throws XMLStreamException, InterruptedException {
+        BlockingQueue<Map.Entry<Long, Publication>> queue = new ArrayBlockingQueue<>(capacity);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread parser = new Thread(() -> {
+            try {
+                load(input, (Long key, Publication publication) -> {
+                    try {
+                        queue.put(new SimpleEntry<>(key, publication));
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(exception);
+                    }
+                });
+            } catch (Exception exception) {
+                failure.set(exception);
+            } finally {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException exception) {
+                    // quack
+                }
+            }
+        }, "tagger-loader");
+        parser.setDaemon(true);
+        parser.start();
+        try {
+            Map.Entry<Long, Publication> entry;
+            while ((entry = queue.take()) != END) {
+                consumer.accept(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            parser.interrupt();
+        }
+        parser.join();
+        Exception exception = failure.get();
+        if (exception instanceof XMLStreamException) {
+            throw (XMLStreamException) exception;
+        } else if (exception != null) {
+            throw new XMLStreamException(exception);
+        }
+    }
+
+    /**
+     * Cria o leitor de XML, sem suporte a DTDs e entidades externas.
+     * @param input Fluxo de entrada.
+     * @return Leitor de XML.
+     * @throws XMLStreamException Erro na criação do leitor.
+     */
+    private static XMLStreamReader createReader(InputStream input) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory.createXMLStreamReader(input);
+    }
+
+    /**
+     * Lê os campos de uma publicação, cujo elemento de abertura acabou de ser
+     * consumido. Campos desconhecidos são ignorados.
+     * @param reader Leitor de XML.
+     * @return Publicação.
+     * @throws XMLStreamException O conteúdo não está no formato esperado.
+     */
+    private static Publication readPublication(XMLStreamReader reader) throws XMLStreamException {
+        checkReference(reader);
+        Publication publication = Publication.blank();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            checkReference(reader);
+            switch (reader.getLocalName()) {
+                case "identifier":
+                    publication.setIdentifier(parseLong(reader));
+                    break;
+                case "title":
+                    publication.setTitle(reader.getElementText());
+                    break;
+                case "authors":
+                    publication.setAuthors(readStrings(reader, new ArrayList<>()));
+                    break;
+                case "tags":
+                    publication.setTags(readStrings(reader, new HashSet<>()));
+                    break;
+                case "created":
+                    publication.setCreated(parseLong(reader));
+                    break;
+                case "modified":
+                    publication.setModified(parseLong(reader));
+                    break;
+                case "pages":
+                    publication.setPages((int) parseLong(reader));
+                    break;
+                default:
+                    skip(reader);
+            }
+        }
+        return publication;
+    }
+
+    /**
+     * Lê uma coleção de textos, cujo elemento de abertura acabou de ser
+     * consumido.
+     * @param <T> Tipo da coleção.
+     * @param reader Leitor de XML.
+     * @param collection Coleção a ser preenchida.
+     * @return Coleção preenchida.
+     * @throws XMLStreamException O conteúdo não está no formato esperado.
+     */
+    private static <T extends Collection<String>> T readStrings(XMLStreamReader reader, T collection) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            checkReference(reader);
+            if (!reader.getLocalName().equals("string")) {
+                throw new XMLStreamException("unsupported collection element: ".concat(reader.getLocalName()), reader.getLocation());
+            }
+            collection.add(reader.getElementText());
+        }
+        return collection;
+    }
+
+    /**
+     * Lê o conteúdo do elemento corrente como um valor longo.
+     * @param reader Leitor de XML.
+     * @return Valor longo.
+     * @throws XMLStreamException O conteúdo não é um valor longo.
+     */
+    private static long parseLong(XMLStreamReader reader) throws XMLStreamException {
+        String text = reader.getElementText().trim();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException exception) {
+            throw new XMLStreamException("invalid number: ".concat(text), reader.getLocation());
+        }
+    }
+
+    /**
+     * Verifica se o elemento corrente é do tipo e nome esperados.
+     * @param reader Leitor de XML.
+     * @param event Tipo do evento corrente.
+     * @param name Nome esperado.
+     * @throws XMLStreamException O elemento não é o esperado.
+     */
+    private static void expect(XMLStreamReader reader, int event, String name) throws XMLStreamException {
+        if (event != XMLStreamConstants.START_ELEMENT || !reader.getLocalName().equals(name)) {
+            throw new XMLStreamException("expected element: ".concat(name), reader.getLocation());
+        }
+    }
+
+    /**
+     * Rejeita elementos que fazem referência a outros elementos, recurso do
+     * XStream não suportado por este leitor.
+     * @param reader Leitor de XML.
+     * @throws XMLStreamException O elemento possui uma referência.
+     */
+    private static void checkReference(XMLStreamReader reader) throws XMLStreamException {
+        if (reader.getAttributeValue(null, "reference") != null) {
+            throw new XMLStreamException("unsupported reference", reader.getLocation());
+        }
+    }
+
+    /**
+     * Ignora o elemento corrente e todo o seu conteúdo.
+     * @param reader Leitor de XML.
+     * @throws XMLStreamException Erro de leitura.
+     */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+}
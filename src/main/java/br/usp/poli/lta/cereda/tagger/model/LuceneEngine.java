@@ -0,0 +1,631 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+/**
+ * Implementa um mecanismo de busca baseado em um índice Lucene gravado em
+ * disco, ao lado do banco de dados. Cada publicação é um documento com as
+ * chaves de suas etiquetas, de seus autores, das palavras dos nomes dos
+ * autores e das palavras do título, além de pontos numéricos com as datas e o
+ * número de páginas, de modo que as buscas correspondem às buscas do índice
+ * em memória. O índice registra, a cada gravação, uma marca do banco de dados
+ * correspondente e a versão do formato dos documentos; uma marca ou versão
+ * divergente indica que o índice deve ser reconstruído. O índice existente é
+ * aberto apenas para leitura, e o escritor, que obtém o bloqueio exclusivo do
+ * diretório, é criado somente na primeira alteração, de modo que várias
+ * buscas simultâneas e índices em diretórios somente para leitura são
+ * suportados.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class LuceneEngine implements Closeable {
+
+    private static final String KEY = "key";
+    private static final String ID = "id";
+    private static final String TAG = "tag";
+    private static final String AUTHOR = "author";
+    private static final String NAME = "name";
+    private static final String TITLE = "title";
+    private static final String CREATED = "created";
+    private static final String MODIFIED = "modified";
+    private static final String PAGES = "pages";
+    private static final String STAMP = "stamp";
+    private static final String VERSION = "version";
+    private static final String FORMAT = "2";
+
+    private final Directory directory;
+    private IndexWriter writer;
+    private SearcherManager manager;
+    private boolean dirty;
+
+    /**
+     * Construtor. O índice existente é aberto apenas para leitura; caso não
+     * exista, é criado na primeira alteração.
+     * @param location Diretório do índice.
+     * @throws IOException O índice não pôde ser aberto.
+     */
+    public LuceneEngine(File location) throws IOException {
+        this.directory = FSDirectory.open(location.toPath());
+        try {
+            this.manager = DirectoryReader.indexExists(directory) ? new SearcherManager(directory, null) : null;
+        } catch (IOException exception) {
+            directory.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Obtém o escritor do índice, criando-o na primeira alteração. O leitor
+     * passa então a ser obtido do escritor, refletindo também as alterações
+     * que ainda não foram gravadas.
+     * @return Escritor do índice.
+     * @throws IOException O índice não pôde ser aberto para gravação.
+     */
+    private IndexWriter writer() throws IOException {
+        if (writer == null) {
+            IndexWriter result = new IndexWriter(directory, new IndexWriterConfig());
+            SearcherManager searchers;
+            try {
+                searchers = new SearcherManager(result, null);
+            } catch (IOException exception) {
+                result.rollback();
+                throw exception;
+            }
+            if (manager != null) {
+                manager.close();
+            }
+            writer = result;
+            manager = searchers;
+        }
+        return writer;
+    }
+
+    /**
+     * Obtém a marca do banco de dados registrada na última gravação do
+     * índice.
+     * @return Marca do banco de dados, ou nulo caso o índice nunca tenha sido
+     * gravado ou tenha sido gravado em um formato anterior.
+     * @throws IOException O índice não pôde ser lido.
+     */
+    public String getStamp() throws IOException {
+        if (!DirectoryReader.indexExists(directory)) {
+            return null;
+        }
+        Map<String, String> data = SegmentInfos.readLatestCommit(directory).getUserData();
+        return FORMAT.equals(data.get(VERSION)) ? data.get(STAMP) : null;
+    }
+
+    /**
+     * Descarta todos os documentos do índice e indexa as publicações
+     * informadas.
+     * @param publications Publicações.
+     * @throws IOException O índice não pôde ser alterado.
+     */
+    public void rebuild(Collection<Publication> publications) throws IOException {
+        IndexWriter target = writer();
+        target.deleteAll();
+        for (Publication publication : publications) {
+            target.addDocument(document(publication));
+        }
+        dirty = true;
+    }
+
+    /**
+     * Insere ou substitui a publicação no índice.
+     * @param publication Publicação.
+     * @throws IOException O índice não pôde ser alterado.
+     */
+    public void put(Publication publication) throws IOException {
+        writer().updateDocument(new Term(KEY, Long.toString(publication.getIdentifier())), document(publication));
+        dirty = true;
+    }
+
+    /**
+     * Remove a publicação do índice.
+     * @param identifier Identificador da publicação.
+     * @throws IOException O índice não pôde ser alterado.
+     */
+    public void remove(long identifier) throws IOException {
+        writer().deleteDocuments(new Term(KEY, Long.toString(identifier)));
+        dirty = true;
+    }
+
+    /**
+     * Grava as alterações pendentes no índice, registrando a marca do banco
+     * de dados correspondente.
+     * @param stamp Marca do banco de dados.
+     * @throws IOException O índice não pôde ser gravado.
+     */
+    public void commit(String stamp) throws IOException {
+        Map<String, String> data = new HashMap<>();
+        data.put(STAMP, stamp);
+        data.put(VERSION, FORMAT);
+        IndexWriter target = writer();
+        target.setLiveCommitData(data.entrySet());
+        target.commit();
+    }
+
+
+    /**
+     * Fecha o índice, descartando as alterações que não foram gravadas.
+     * @throws IOException O índice não pôde ser fechado.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (manager != null) {
+                manager.close();
+            }
+            if (writer != null) {
+                writer.rollback();
+            }
+        } finally {
+            directory.close();
+        }
+    }
+
+    /**
+     * Busca as publicações que possuem uma das etiquetas informadas,
+     * expandindo as etiquetas terminadas em asterisco.
+     * @param tags Conjunto de etiquetas.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchTags(Set<String> tags) {
+        return collect(tags(tags));
+    }
+
+    /**
+     * Busca as publicações que possuem um dos autores informados.
+     * @param authors Conjunto de autores.
+     * @param distance Distância de edição máxima por palavra, ou um valor
+     * negativo para a busca exata.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchAuthors(Set<String> authors, int distance) {
+        return collect(authors(authors, distance));
+    }
+
+    /**
+     * Busca as publicações que possuem um dos autores e uma das etiquetas
+     * informados.
+     * @param authors Conjunto de autores.
+     * @param tags Conjunto de etiquetas.
+     * @param distance Distância de edição máxima por palavra, ou um valor
+     * negativo para a busca exata.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchAuthorsWithTags(Set<String> authors, Set<String> tags, int distance) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(authors(authors, distance), Occur.FILTER);
+        builder.add(tags(tags), Occur.FILTER);
+        return collect(builder.build());
+    }
+
+    /**
+     * Busca as publicações cujos títulos correspondem à consulta informada,
+     * com a mesma sintaxe da busca em memória: termos, frases entre aspas e
+     * prefixos terminados em asterisco, todos obrigatórios.
+     * @param query Consulta.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchTitle(String query) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        String key = Keys.fold(query);
+        int position = 0;
+        while (position < key.length()) {
+            if (key.charAt(position) == ' ') {
+                position++;
+                continue;
+            }
+            if (key.charAt(position) == '"') {
+                int end = key.indexOf('"', position + 1);
+                end = end < 0 ? key.length() : end;
+                List<String> tokens = Keys.tokenize(key.substring(position + 1, end));
+                position = end + 1;
+                if (!tokens.isEmpty()) {
+                    builder.add(new PhraseQuery(TITLE, tokens.toArray(new String[0])), Occur.FILTER);
+                }
+            } else {
+                int end = key.indexOf(' ', position);
+                end = end < 0 ? key.length() : end;
+                String token = key.substring(position, end);
+                position = end;
+                List<String> tokens = Keys.tokenize(token);
+                for (int i = 0; i < tokens.size(); i++) {
+                    Term term = new Term(TITLE, tokens.get(i));
+                    builder.add(token.endsWith("*") && i == tokens.size() - 1 ? new PrefixQuery(term) : new TermQuery(term), Occur.FILTER);
+                }
+            }
+        }
+        return collect(builder.build());
+    }
+
+    /**
+     * Busca as publicações mais relevantes para as etiquetas e autores
+     * informados, de acordo com a pontuação do Lucene. Tal como na busca em
+     * memória, cada termo da consulta presente no título soma um bônus e,
+     * quando ambos os conjuntos são informados, apenas as publicações que
+     * correspondem a ambos são consideradas.
+     * @param tags Conjunto de etiquetas, ou nulo.
+     * @param authors Conjunto de autores, ou nulo.
+     * @param distance Distância de edição máxima por palavra dos autores, ou
+     * um valor negativo para a busca exata.
+     * @param limit Número máximo de publicações.
+     * @return Lista de identificadores e respectivas pontuações, em ordem
+     * decrescente de pontuação.
+     */
+    public List<Map.Entry<Long, Double>> rank(Set<String> tags, Set<String> authors, int distance, int limit) {
+        return rank(tags, authors, distance, limit, null);
+    }
+
+    /**
+     * Busca as publicações mais relevantes para as etiquetas e autores
+     * informados, considerando apenas as publicações que correspondem ao
+     * filtro de intervalos, que não altera a pontuação.
+     * @param tags Conjunto de etiquetas, ou nulo.
+     * @param authors Conjunto de autores, ou nulo.
+     * @param distance Distância de edição máxima por palavra dos autores, ou
+     * um valor negativo para a busca exata.
+     * @param limit Número máximo de publicações.
+     * @param filter Filtro de intervalos, ou nulo.
+     * @return Lista de identificadores e respectivas pontuações, em ordem
+     * decrescente de pontuação.
+     */
+    public List<Map.Entry<Long, Double>> rank(Set<String> tags, Set<String> authors, int distance, int limit, Filter filter) {
+        List<Map.Entry<Long, Double>> result = new ArrayList<>();
+        if (tags == null && authors == null) {
+            return result;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        Set<String> terms = new HashSet<>();
+        if (tags != null) {
+            builder.add(tags(tags), Occur.MUST);
+            tags.stream().map(Index::normalizeTag).forEach((String t) -> terms.addAll(Keys.tokenize(t)));
+        }
+        if (authors != null) {
+            builder.add(authors(authors, distance), Occur.MUST);
+            authors.stream().map(Index::normalizeAuthor).forEach((String t) -> terms.addAll(Keys.tokenize(t)));
+        }
+        if (filter != null) {
+            ranges(builder, filter);
+        }
+        for (String term : terms) {
+            if (term.length() > 1) {
+                builder.add(new BoostQuery(new TermQuery(new Term(TITLE, term)), (float) Index.TITLE_WEIGHT), Occur.SHOULD);
+            }
+        }
+        try {
+            IndexSearcher searcher = acquire();
+            try {
+                for (ScoreDoc hit : searcher.search(builder.build(), limit).scoreDocs) {
+                    result.add(new SimpleImmutableEntry<>(identifier(searcher, hit.doc), (double) hit.score));
+                }
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return result;
+    }
+
+    /**
+     * Busca as publicações que correspondem a todos os intervalos do filtro
+     * informado.
+     * @param filter Filtro de intervalos.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> searchRange(Filter filter) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        ranges(builder, filter);
+        return collect(builder.build());
+    }
+
+    /**
+     * Acrescenta à consulta as restrições de intervalo do filtro informado,
+     * sem influência na pontuação.
+     * @param builder Construtor da consulta.
+     * @param filter Filtro de intervalos.
+     */
+    private static void ranges(BooleanQuery.Builder builder, Filter filter) {
+        if (filter.getCreated() != null) {
+            builder.add(LongPoint.newRangeQuery(CREATED, filter.getCreated().getMinimum(), filter.getCreated().getMaximum()), Occur.FILTER);
+        }
+        if (filter.getModified() != null) {
+            builder.add(LongPoint.newRangeQuery(MODIFIED, filter.getModified().getMinimum(), filter.getModified().getMaximum()), Occur.FILTER);
+        }
+        if (filter.getPages() != null) {
+            builder.add(LongPoint.newRangeQuery(PAGES, filter.getPages().getMinimum(), filter.getPages().getMaximum()), Occur.FILTER);
+        }
+    }
+
+    /**
+     * Cria a consulta que corresponde a uma das etiquetas informadas. Uma
+     * etiqueta terminada em asterisco corresponde às etiquetas iniciadas pelo
+     * prefixo que a antecede.
+     * @param tags Conjunto de etiquetas.
+     * @return Consulta.
+     */
+    private static Query tags(Set<String> tags) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        tags.stream().map(Index::normalizeTag).distinct().forEach((String tag) -> {
+            if (tag.endsWith("*")) {
+                builder.add(new PrefixQuery(new Term(TAG, tag.substring(0, tag.length() - 1))), Occur.SHOULD);
+            } else {
+                builder.add(new TermQuery(new Term(TAG, tag)), Occur.SHOULD);
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * Cria a consulta que corresponde a um dos autores informados. Na busca
+     * exata, um autor corresponde se contiver um dos termos; na busca
+     * aproximada, cada palavra do termo deve estar próxima de uma palavra dos
+     * nomes dos autores da publicação, com distância limitada à metade do
+     * comprimento da palavra e, pelo Lucene, a duas edições.
+     * @param authors Conjunto de autores.
+     * @param distance Distância de edição máxima por palavra, ou um valor
+     * negativo para a busca exata.
+     * @return Consulta.
+     */
+    private static Query authors(Set<String> authors, int distance) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        authors.stream().map(Keys::fold).distinct().forEach((String term) -> {
+            if (distance < 0) {
+                builder.add(new WildcardQuery(new Term(AUTHOR, "*" + escape(term) + "*")), Occur.SHOULD);
+                return;
+            }
+            List<String> words = Keys.tokenize(term);
+            if (words.isEmpty()) {
+                return;
+            }
+            BooleanQuery.Builder all = new BooleanQuery.Builder();
+            for (String word : words) {
+                int edits = Math.min(Math.min(distance, (word.length() - 1) / 2), FuzzyQuery.defaultMaxEdits);
+                if (edits == 0) {
+                    all.add(new TermQuery(new Term(NAME, word)), Occur.MUST);
+                } else {
+                    FuzzyQuery fuzzy = new FuzzyQuery(new Term(NAME, word), edits, 0, FuzzyQuery.defaultMaxExpansions, false);
+                    fuzzy.setRewriteMethod(MultiTermQuery.CONSTANT_SCORE_REWRITE);
+                    all.add(fuzzy, Occur.MUST);
+                }
+            }
+            builder.add(all.build(), Occur.SHOULD);
+        });
+        return builder.build();
+    }
+
+    /**
+     * Escapa os caracteres especiais de uma consulta com curingas.
+     * @param text Texto.
+     * @return Texto escapado.
+     */
+    private static String escape(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '*' || c == '?' || c == '\\') {
+                result.append('\\');
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Obtém os identificadores de todas as publicações que correspondem à
+     * consulta, sem calcular pontuações.
+     * @param query Consulta.
+     * @return Conjunto de identificadores.
+     */
+    private Set<Long> collect(Query query) {
+        Set<Long> result = new HashSet<>();
+        try {
+            IndexSearcher searcher = acquire();
+            try {
+                searcher.search(query, new SimpleCollector() {
+
+                    private NumericDocValues values;
+
+                    @Override
+                    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                        values = DocValues.getNumeric(context.reader(), ID);
+                    }
+
+                    @Override
+                    public void collect(int document) throws IOException {
+                        if (values.advanceExact(document)) {
+                            result.add(values.longValue());
+                        }
+                    }
+
+                    @Override
+                    public ScoreMode scoreMode() {
+                        return ScoreMode.COMPLETE_NO_SCORES;
+                    }
+
+                });
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return result;
+    }
+
+    /**
+     * Obtém um leitor do índice que reflete todas as alterações feitas até o
+     * momento, gravadas ou não.
+     * @return Leitor do índice, a ser devolvido ao gerenciador.
+     * @throws IOException O índice não pôde ser lido.
+     */
+    private IndexSearcher acquire() throws IOException {
+        if (manager == null) {
+            writer();
+        }
+        if (dirty) {
+            manager.maybeRefreshBlocking();
+            dirty = false;
+        }
+        return manager.acquire();
+    }
+
+    /**
+     * Obtém o identificador da publicação de um documento.
+     * @param searcher Leitor do índice.
+     * @param document Número do documento.
+     * @return Identificador da publicação.
+     * @throws IOException O índice não pôde ser lido.
+     */
+    private static long identifier(IndexSearcher searcher, int document) throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(document, leaves));
+        NumericDocValues values = DocValues.getNumeric(leaf.reader(), ID);
+        values.advanceExact(document - leaf.docBase);
+        return values.longValue();
+    }
+
+    /**
+     * Cria o documento correspondente à publicação.
+     * @param publication Publicação.
+     * @return Documento.
+     */
+    private static Document document(Publication publication) {
+        Document document = new Document();
+        document.add(new StringField(KEY, Long.toString(publication.getIdentifier()), Field.Store.NO));
+        document.add(new NumericDocValuesField(ID, publication.getIdentifier()));
+        for (String tag : publication.getTagKeys()) {
+            document.add(new StringField(TAG, tag, Field.Store.NO));
+        }
+        Set<String> names = new HashSet<>();
+        for (String author : publication.getAuthorKeys()) {
+            document.add(new StringField(AUTHOR, author, Field.Store.NO));
+            names.addAll(Keys.tokenize(author));
+        }
+        for (String name : names) {
+            document.add(new StringField(NAME, name, Field.Store.NO));
+        }
+        document.add(new TextField(TITLE, new Words(Keys.tokenize(publication.getTitleKey()))));
+        if (publication.getCreated() != 0) {
+            document.add(new LongPoint(CREATED, publication.getCreated()));
+        }
+        if (publication.getModified() != 0) {
+            document.add(new LongPoint(MODIFIED, publication.getModified()));
+        }
+        if (publication.getPages() != 0) {
+            document.add(new LongPoint(PAGES, publication.getPages()));
+        }
+        return document;
+    }
+
+    /**
+     * Fornece ao índice as palavras de um título, já separadas pela mesma
+     * regra da busca em memória.
+     */
+    private static final class Words extends TokenStream {
+
+        private final CharTermAttribute term = addAttribute(CharTermAttribute.class);
+        private final Iterator<String> words;
+
+        /**
+         * Construtor.
+         * @param words Lista de palavras.
+         */
+        private Words(List<String> words) {
+            this.words = words.iterator();
+        }
+
+        @Override
+        public boolean incrementToken() {
+            clearAttributes();
+            if (!words.hasNext()) {
+                return false;
+            }
+            term.setEmpty().append(words.next());
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import br.usp.poli.lta.cereda.tagger.utils.Messages;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+
+/**
+ * Implementa o armazenamento do banco de dados em um arquivo MVStore, o
+ * armazenamento chave-valor transacional embutido do H2. Cada publicação é
+ * gravada como uma linha de texto no formato do {@link Codec}, de modo que
+ * inserções e remoções alteram apenas as páginas afetadas. Cada gravação
+ * produz uma nova versão do arquivo, e uma interrupção durante a gravação
+ * preserva a última versão completa.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class MVStorage implements Storage {
+
+    private static final String MAP = "publications";
+    private static final int CACHE_SIZE = 16;
+
+    private final File location;
+    private MVStore store;
+    private MVMap<Long, String> records;
+
+    /**
+     * Construtor.
+     * @param location Arquivo MVStore.
+     */
+    public MVStorage(File location) {
+        this.location = location;
+    }
+
+    /**
+     * Abre o arquivo MVStore, criando-o se necessário, e percorre as
+     * publicações gravadas.
+     * @param consumer Consumidor de identificadores e publicações.
+     * @throws IOException O arquivo existe, mas não pôde ser lido.
+     */
+    @Override
+    public void load(BiConsumer<Long, Publication> consumer) throws IOException {
+        try {
+            if (store == null) {
+                store = new MVStore.Builder().fileName(location.getAbsolutePath()).autoCommitDisabled().cacheSize(CACHE_SIZE).open();
+                records = store.openMap(MAP);
+            }
+            iterate(consumer);
+        } catch (RuntimeException exception) {
+            close();
+            throw new IOException(Messages.getMessage("DATABASE_CORRUPTED", location.getAbsolutePath()), exception);
+        }
+    }
+
+    /**
+     * Obtém a publicação com o identificador informado.
+     * @param identifier Identificador.
+     * @return Publicação, ou nulo caso não exista.
+     */
+    @Override
+    public Publication get(long identifier) {
+        String record = records.get(identifier);
+        return record == null ? null : Codec.decode(record);
+    }
+
+    /**
+     * Insere ou substitui uma publicação.
+     * @param publication Publicação.
+     */
+    @Override
+    public void put(Publication publication) {
+        records.put(publication.getIdentifier(), Codec.encode(publication));
+    }
+
+    /**
+     * Remove uma publicação.
+     * @param identifier Identificador.
+     */
+    @Override
+    public void remove(long identifier) {
+        records.remove(identifier);
+    }
+
+    /**
+     * Percorre as publicações do arquivo, incluindo as alterações ainda não
+     * gravadas.
+     * @param consumer Consumidor de identificadores e publicações.
+     */
+    @Override
+    public void iterate(BiConsumer<Long, Publication> consumer) {
+        for (Map.Entry<Long, String> entry : records.entrySet()) {
+            consumer.accept(entry.getKey(), Codec.decode(entry.getValue()));
+        }
+    }
+
+    /**
+     * Grava as alterações pendentes em uma nova versão do arquivo e
+     * sincroniza o arquivo com o disco.
+     * @throws IOException As alterações não puderam ser gravadas.
+     */
+    @Override
+    public void commit() throws IOException {
+        try {
+            store.commit();
+            store.sync();
+        } catch (RuntimeException exception) {
+            throw new IOException(Messages.getMessage("DATABASE_COMMIT_ERROR", location.getAbsolutePath()), exception);
+        }
+    }
+
+    /**
+     * Fecha o arquivo, descartando as alterações não gravadas.
+     */
+    @Override
+    public void close() {
+        if (store != null) {
+            store.rollback();
+            store.close();
+            store = null;
+            records = null;
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Implementa uma tabela de diretórios organizada em árvore, na qual cada
+ * diretório é registrado uma única vez, como um nó que aponta para o nó de
+ * seu diretório pai e guarda apenas o próprio nome. Assim, milhões de
+ * caminhos sob poucas raízes compartilham os prefixos em comum, e cada
+ * caminho pode ser representado por um número inteiro. Os métodos são
+ * sincronizados, de modo que a tabela pode ser compartilhada entre linhas de
+ * execução.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class PathTable {
+
+    /**
+     * Identificador que representa a ausência de diretório.
+     */
+    public static final int NONE = -1;
+
+    private int[] parents;
+    private String[] names;
+    private int size;
+    private int[] slots;
+    private String lastPath;
+    private int lastId;
+
+    /**
+     * Construtor.
+     */
+    public PathTable() {
+        this.parents = new int[64];
+        this.names = new String[64];
+        this.slots = new int[128];
+        this.lastId = NONE;
+    }
+
+    /**
+     * Registra o diretório informado e todos os seus ancestrais, caso ainda
+     * não existam na tabela.
+     * @param directory Diretório, ou nulo.
+     * @return Identificador do diretório, ou {@link #NONE} caso o diretório
+     * seja nulo.
+     */
+    public synchronized int intern(File directory) {
+        if (directory == null) {
+            return NONE;
+        }
+        String path = directory.getPath();
+        if (!path.equals(lastPath)) {
+            lastId = lookup(directory);
+            lastPath = path;
+        }
+        return lastId;
+    }
+
+    /**
+     * Obtém o diretório correspondente ao identificador informado.
+     * @param id Identificador do diretório.
+     * @return Diretório, ou nulo caso o identificador seja {@link #NONE}.
+     */
+    public synchronized File directory(int id) {
+        if (id == NONE) {
+            return null;
+        }
+        return parents[id] == NONE ? new File(names[id]) : new File(directory(parents[id]), names[id]);
+    }
+
+    /**
+     * Obtém o número de diretórios registrados.
+     * @return Número de diretórios.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Localiza o diretório, registrando-o caso necessário, a partir de seus
+     * ancestrais.
+     * @param directory Diretório.
+     * @return Identificador do diretório.
+     */
+    private int lookup(File directory) {
+        File parent = directory.getParentFile();
+        if (parent == null) {
+            return child(NONE, directory.getPath());
+        }
+        return child(lookup(parent), directory.getName());
+    }
+
+    /**
+     * Localiza o nó com o pai e o nome informados, registrando-o caso não
+     * exista.
+     * @param parent Identificador do diretório pai.
+     * @param name Nome do diretório.
+     * @return Identificador do diretório.
+     */
+    private int child(int parent, String name) {
+        int mask = slots.length - 1;
+        int slot = hash(parent, name) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (parents[id] == parent && names[id].equals(name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == parents.length) {
+            parents = Arrays.copyOf(parents, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+        }
+        parents[size] = parent;
+        names[size] = name;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Dobra a tabela de espalhamento, redistribuindo os nós.
+     */
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(parents[id], names[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Calcula o espalhamento de um nó a partir do pai e do nome.
+     * @param parent Identificador do diretório pai.
+     * @param name Nome do diretório.
+     * @return Valor de espalhamento.
+     */
+    private static int hash(int parent, String name) {
+        int value = parent * 0x9E3779B1 + name.hashCode();
+        return value ^ (value >>> 16);
+    }
+
+}
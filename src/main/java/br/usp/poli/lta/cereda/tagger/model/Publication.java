@@ -33,9 +33,12 @@
 package br.usp.poli.lta.cereda.tagger.model;
 
 import br.usp.poli.lta.cereda.tagger.utils.Messages;
-import java.io.File;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -56,7 +59,13 @@ public class Publication {
     private String title;
     private List<String> authors;
     private Set<String> tags;
-    private Set<File> references;
+    private long created;
+    private long modified;
+    private int pages;
+    private References references;
+    private String titleKey;
+    private List<String> authorKeys;
+    private Set<String> tagKeys;
     
     /**
      * Construtor.
@@ -102,14 +111,16 @@ public class Publication {
      */
     public void setTitle(String title) {
         this.title = title;
+        this.titleKey = null;
     }
     
     /**
-     * Obtém a lista de autores.
+     * Obtém a lista de autores, apenas para leitura, de modo que as chaves de
+     * busca acompanhem as alterações feitas pelos métodos desta classe.
      * @return Lista de autores.
      */
     public List<String> getAuthors() {
-        return authors;
+        return authors == null ? null : Collections.unmodifiableList(authors);
     }
     
     /**
@@ -118,14 +129,17 @@ public class Publication {
      */
     public void setAuthors(List<String> authors) {
         this.authors = authors;
+        this.authorKeys = null;
     }
     
     /**
-     * Obtém o conjunto de etiquetas.
+     * Obtém o conjunto de etiquetas, apenas para leitura, de modo que as
+     * chaves de busca acompanhem as alterações feitas pelos métodos desta
+     * classe.
      * @return Conjunto de etiquetas.
      */
     public Set<String> getTags() {
-        return tags;
+        return tags == null ? null : Collections.unmodifiableSet(tags);
     }
     
     /**
@@ -134,6 +148,58 @@ public class Publication {
      */
     public void setTags(Set<String> tags) {
         this.tags = tags;
+        this.tagKeys = null;
+    }
+    
+    /**
+     * Obtém a data de criação do documento.
+     * @return Data de criação, em milissegundos, ou zero caso desconhecida.
+     */
+    public long getCreated() {
+        return created;
+    }
+    
+    /**
+     * Define a data de criação do documento.
+     * @param created Data de criação, em milissegundos, ou zero caso
+     * desconhecida.
+     */
+    public void setCreated(long created) {
+        this.created = created;
+    }
+    
+    /**
+     * Obtém a data de modificação do documento.
+     * @return Data de modificação, em milissegundos, ou zero caso
+     * desconhecida.
+     */
+    public long getModified() {
+        return modified;
+    }
+    
+    /**
+     * Define a data de modificação do documento.
+     * @param modified Data de modificação, em milissegundos, ou zero caso
+     * desconhecida.
+     */
+    public void setModified(long modified) {
+        this.modified = modified;
+    }
+    
+    /**
+     * Obtém o número de páginas do documento.
+     * @return Número de páginas, ou zero caso desconhecido.
+     */
+    public int getPages() {
+        return pages;
+    }
+    
+    /**
+     * Define o número de páginas do documento.
+     * @param pages Número de páginas, ou zero caso desconhecido.
+     */
+    public void setPages(int pages) {
+        this.pages = pages;
     }
     
     /**
@@ -198,6 +264,7 @@ public class Publication {
      * @return Valor lógico indicando se a etiqueta foi removida com sucesso.
      */
     public boolean removeTag(String tag) {
+        tagKeys = null;
         return tags.remove(tag);
     }
     
@@ -207,6 +274,7 @@ public class Publication {
      * @return Valor lógico indicando se a etiqueta foi inserida com sucesso.
      */
     public boolean addTag(String tag) {
+        tagKeys = null;
         return tags.add(tag);
     }
     
@@ -226,6 +294,7 @@ public class Publication {
      * autores.
      */
     public boolean addAuthor(String author) {
+        authorKeys = null;
         return authors.add(author);
     }
     
@@ -236,6 +305,7 @@ public class Publication {
      * autores.
      */
     public boolean removeAuthor(String author) {
+        authorKeys = null;
         return authors.remove(author);
     }
     
@@ -256,26 +326,36 @@ public class Publication {
     }
     
     /**
-     * Verifica se a publicação possui uma das etiquetas informadas.
-     * @param query Conjunto de etiquetas.
-     * @return Valor lógico indicando se a publicação possui uma das etiquetas
-     * informadas.
+     * Obtém a chave de busca do título.
+     * @return Chave de busca do título.
      */
-    public boolean hasAnyTags(Set<String> query) {
-        query = query.stream().map((UnaryOperator<String>) (String t) -> t.replaceAll("\\s+", " ").trim().toLowerCase()).collect(Collectors.toCollection(HashSet::new));
-        return tags.stream().anyMatch(query::contains);
+    public String getTitleKey() {
+        if (titleKey == null) {
+            titleKey = title == null ? "" : Keys.fold(title);
+        }
+        return titleKey;
     }
-    
+
     /**
-     * Verifica se a publicação possui um dos autores informados.
-     * @param query Conjunto de autores.
-     * @return Valor lógico indicando se a publicação possui um dos autores
-     * informados.
+     * Obtém as chaves de busca dos autores.
+     * @return Lista de chaves de busca, sem repetições.
      */
-    public boolean hasAnyAuthors(Set<String> query) {
-        return authors.stream().anyMatch((String t) -> {
-            return query.stream().anyMatch((element) -> (t.replaceAll("\\s+", " ").toLowerCase().trim().contains(element.toLowerCase().trim()) == true));
-        });
+    public List<String> getAuthorKeys() {
+        if (authorKeys == null) {
+            authorKeys = Collections.unmodifiableList(authors == null ? new ArrayList<String>() : authors.stream().map(Keys::fold).filter((String t) -> !t.isEmpty()).distinct().collect(Collectors.toList()));
+        }
+        return authorKeys;
+    }
+
+    /**
+     * Obtém as chaves de busca das etiquetas.
+     * @return Conjunto de chaves de busca.
+     */
+    public Set<String> getTagKeys() {
+        if (tagKeys == null) {
+            tagKeys = Collections.unmodifiableSet(tags == null ? new HashSet<String>() : tags.stream().map(Keys::fold).filter((String t) -> !t.isEmpty()).collect(Collectors.toSet()));
+        }
+        return tagKeys;
     }
     
     /**
@@ -285,6 +365,12 @@ public class Publication {
         authors = authors.stream().map((UnaryOperator<String>) (String t) -> t.replaceAll("\\s+", " ").trim()).collect(Collectors.toList());
         tags = tags.stream().map((UnaryOperator<String>) (String t) -> t.replaceAll("\\s+", " ").trim().toLowerCase()).collect(Collectors.toCollection(HashSet::new));
         title = title.replaceAll("\\s+", " ").trim();
+        titleKey = null;
+        authorKeys = null;
+        tagKeys = null;
+        getTitleKey();
+        getAuthorKeys();
+        getTagKeys();
     }
     
     /**
@@ -293,6 +379,8 @@ public class Publication {
     public void cleanCollections() {
         authors = authors.stream().filter((String t) -> !t.trim().isEmpty()).collect(Collectors.toList());
         tags = tags.stream().filter((String t) -> !t.trim().isEmpty()).collect(Collectors.toCollection(HashSet::new));
+        authorKeys = null;
+        tagKeys = null;
     }
     
     /**
@@ -349,10 +437,23 @@ public class Publication {
                 main.append(newline).append(WordUtils.wrap("- ".concat(tag), 70, newline, true));
             });
         }
+        if (created != 0 || modified != 0 || pages != 0) {
+            DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE.withZone(ZoneId.systemDefault());
+            main.append(newline).append(StringUtils.repeat('.', 70));
+            if (created != 0) {
+                main.append(newline).append(Messages.getMessage("CREATED").toUpperCase().concat(": ").concat(formatter.format(Instant.ofEpochMilli(created))));
+            }
+            if (modified != 0) {
+                main.append(newline).append(Messages.getMessage("MODIFIED").toUpperCase().concat(": ").concat(formatter.format(Instant.ofEpochMilli(modified))));
+            }
+            if (pages != 0) {
+                main.append(newline).append(Messages.getMessage("PAGES").toUpperCase().concat(": ").concat(String.valueOf(pages)));
+            }
+        }
         if (references != null && !references.isEmpty()) {
             main.append(newline).append(StringUtils.repeat('.', 70));
             main.append(newline).append(WordUtils.wrap(Messages.getMessage("FILE_REFERENCES").concat(":"), 70, newline, true));
-            references.stream().forEach((file) -> {
+            references.forEach((file) -> {
                 main.append(newline).append(WordUtils.wrap("- ".concat(file.getAbsolutePath()), 70, newline, true));
             });
         }
@@ -361,17 +462,17 @@ public class Publication {
     
     /**
      * Obtém as referências de arquivos da publicação.
-     * @return Conjunto de arquivos.
+     * @return Referências de arquivos, ou nulo.
      */
-    public Set<File> getReferences() {
+    public References getReferences() {
         return references;
     }
     
     /**
      * Define as referências de arquivos da publicação.
-     * @param references Conjunto de arquivos.
+     * @param references Referências de arquivos.
      */
-    public void setReferences(Set<File> references) {
+    public void setReferences(References references) {
         this.references = references;
     }
     
@@ -0,0 +1,358 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Implementa um cache limitado de resultados de consultas, com descarte da
+ * consulta usada há mais tempo. Cada resultado registra uma dependência que
+ * decide, a partir das chaves indexadas de uma publicação antes e depois de
+ * uma alteração, se o resultado deixou de ser válido; assim, uma alteração
+ * invalida apenas as consultas cujo resultado pode ter mudado.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class QueryCache {
+
+    /**
+     * Dependência invalidada por qualquer alteração, para resultados que
+     * dependem de estatísticas de todo o índice.
+     */
+    static final Dependency ANY = (Index.Entry before, Index.Entry after) -> true;
+
+    private final int capacity;
+    private final Map<String, Result> results;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Construtor.
+     * @param capacity Número máximo de consultas mantidas, ou zero para
+     * desabilitar o cache.
+     */
+    public QueryCache(int capacity) {
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                if (size() > QueryCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+
+        };
+    }
+
+    /**
+     * Obtém o resultado da consulta identificada pela chave informada,
+     * calculando-o e armazenando-o caso não esteja no cache.
+     * @param <T> Tipo do resultado.
+     * @param key Chave normalizada da consulta.
+     * @param dependency Dependência do resultado.
+     * @param loader Cálculo do resultado.
+     * @return Resultado da consulta.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(String key, Dependency dependency, Supplier<T> loader) {
+        if (capacity <= 0) {
+            return loader.get();
+        }
+        synchronized (this) {
+            Result result = results.get(key);
+            if (result != null) {
+                hits++;
+                return (T) result.value;
+            }
+            misses++;
+        }
+        T value = loader.get();
+        synchronized (this) {
+            results.put(key, new Result(value, dependency));
+        }
+        return value;
+    }
+
+    /**
+     * Descarta os resultados afetados pela alteração de uma publicação.
+     * @param before Chaves indexadas antes da alteração, ou nulo caso a
+     * publicação seja nova.
+     * @param after Chaves indexadas após a alteração, ou nulo caso a
+     * publicação tenha sido removida.
+     */
+    synchronized void invalidate(Index.Entry before, Index.Entry after) {
+        Iterator<Result> iterator = results.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().dependency.isAffected(before, after)) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Descarta todos os resultados.
+     */
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * Obtém o número de consultas atualmente no cache.
+     * @return Número de consultas.
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * Obtém o número de consultas respondidas pelo cache.
+     * @return Número de acertos.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Obtém o número de consultas calculadas por não estarem no cache.
+     * @return Número de faltas.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Obtém o número de resultados descartados por falta de espaço.
+     * @return Número de descartes.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Obtém o número de resultados descartados por alterações nas
+     * publicações.
+     * @return Número de invalidações.
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Cria a dependência de um resultado que contém exatamente as publicações
+     * que satisfazem o critério informado: o resultado é afetado apenas
+     * quando a publicação alterada passa a satisfazer o critério ou deixa de
+     * satisfazê-lo.
+     * @param matcher Critério de pertinência.
+     * @return Dependência.
+     */
+    static Dependency membership(Predicate<Index.Entry> matcher) {
+        return (Index.Entry before, Index.Entry after) -> test(matcher, before) != test(matcher, after);
+    }
+
+    /**
+     * Cria a dependência de uma busca por títulos. Como apenas as palavras
+     * dos títulos são mantidas no índice, o resultado é afetado quando a
+     * publicação, antes ou depois da alteração, possui palavras iniciadas por
+     * todos os termos da consulta, condição necessária para corresponder a
+     * ela.
+     * @param query Consulta.
+     * @return Dependência.
+     */
+    static Dependency title(String query) {
+        List<String> terms = Keys.tokenize(Keys.fold(query));
+        Predicate<Index.Entry> matcher = (Index.Entry entry) -> {
+            for (String term : terms) {
+                if (term.length() > 1 && !startsWith(entry.words, term)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+        return (Index.Entry before, Index.Entry after) -> test(matcher, before) || test(matcher, after);
+    }
+
+    /**
+     * Cria o critério das publicações que possuem uma das etiquetas
+     * informadas, com a mesma expansão de prefixos da busca.
+     * @param keys Etiquetas normalizadas.
+     * @return Critério de pertinência.
+     */
+    static Predicate<Index.Entry> tags(Set<String> keys) {
+        return (Index.Entry entry) -> {
+            for (String tag : entry.tags) {
+                for (String key : keys) {
+                    if (key.endsWith("*") ? tag.startsWith(key.substring(0, key.length() - 1)) : tag.equals(key)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Cria o critério das publicações que possuem um dos autores informados,
+     * com a mesma comparação da busca exata ou aproximada.
+     * @param terms Autores normalizados.
+     * @param distance Distância de edição máxima por palavra, ou um valor
+     * negativo para a busca exata.
+     * @return Critério de pertinência.
+     */
+    static Predicate<Index.Entry> authors(Set<String> terms, int distance) {
+        return (Index.Entry entry) -> {
+            for (String author : entry.authors) {
+                for (String term : terms) {
+                    if (distance < 0 ? author.contains(term) : approximates(author, term, distance)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Cria o critério das publicações que correspondem ao filtro de
+     * intervalos informado.
+     * @param filter Filtro de intervalos.
+     * @return Critério de pertinência.
+     */
+    static Predicate<Index.Entry> filter(Filter filter) {
+        return (Index.Entry entry) -> Index.matches(entry, filter);
+    }
+
+    /**
+     * Verifica se cada palavra do termo está próxima de alguma palavra do
+     * autor, com distância limitada à metade do comprimento da palavra.
+     * @param author Autor normalizado.
+     * @param term Termo normalizado.
+     * @param distance Distância de edição máxima por palavra.
+     * @return Valor lógico indicando se o autor corresponde ao termo.
+     */
+    private static boolean approximates(String author, String term, int distance) {
+        List<String> words = Keys.tokenize(term);
+        if (words.isEmpty()) {
+            return false;
+        }
+        List<String> names = Keys.tokenize(author);
+        for (String word : words) {
+            int limit = Math.min(distance, (word.length() - 1) / 2);
+            boolean found = false;
+            for (String name : names) {
+                if (BKTree.distance(word, name, limit) <= limit) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifica se alguma das palavras é iniciada pelo prefixo informado.
+     * @param words Palavras.
+     * @param prefix Prefixo.
+     * @return Valor lógico indicando se alguma palavra possui o prefixo.
+     */
+    private static boolean startsWith(String[] words, String prefix) {
+        for (String word : words) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aplica o critério às chaves indexadas de uma publicação, considerando
+     * que uma publicação ausente não satisfaz critério algum.
+     * @param matcher Critério de pertinência.
+     * @param entry Chaves indexadas, ou nulo.
+     * @return Valor lógico indicando se a publicação satisfaz o critério.
+     */
+    private static boolean test(Predicate<Index.Entry> matcher, Index.Entry entry) {
+        return entry != null && matcher.test(entry);
+    }
+
+    /**
+     * Decide se um resultado é afetado pela alteração de uma publicação.
+     */
+    interface Dependency {
+
+        /**
+         * Verifica se o resultado é afetado pela alteração.
+         * @param before Chaves indexadas antes da alteração, ou nulo.
+         * @param after Chaves indexadas após a alteração, ou nulo.
+         * @return Valor lógico indicando se o resultado deve ser descartado.
+         */
+        boolean isAffected(Index.Entry before, Index.Entry after);
+
+    }
+
+    /**
+     * Representa um resultado armazenado e sua dependência.
+     */
+    private static class Result {
+
+        private final Object value;
+        private final Dependency dependency;
+
+        /**
+         * Construtor.
+         * @param value Resultado.
+         * @param dependency Dependência.
+         */
+        private Result(Object value, Dependency dependency) {
+            this.value = value;
+            this.dependency = dependency;
+        }
+
+    }
+
+}
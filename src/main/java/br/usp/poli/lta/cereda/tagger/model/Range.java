@@ -0,0 +1,91 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+/**
+ * Representa um intervalo fechado de valores inteiros, usado para filtrar
+ * publicações por datas e número de páginas.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Range {
+
+    private final long minimum;
+    private final long maximum;
+
+    /**
+     * Construtor.
+     * @param minimum Menor valor do intervalo, inclusive.
+     * @param maximum Maior valor do intervalo, inclusive.
+     */
+    public Range(long minimum, long maximum) {
+        this.minimum = minimum;
+        this.maximum = maximum;
+    }
+
+    /**
+     * Obtém o menor valor do intervalo.
+     * @return Menor valor, inclusive.
+     */
+    public long getMinimum() {
+        return minimum;
+    }
+
+    /**
+     * Obtém o maior valor do intervalo.
+     * @return Maior valor, inclusive.
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Verifica se o valor informado pertence ao intervalo.
+     * @param value Valor.
+     * @return Valor lógico indicando se o valor pertence ao intervalo.
+     */
+    public boolean contains(long value) {
+        return value >= minimum && value <= maximum;
+    }
+
+    /**
+     * Obtém a representação textual do intervalo.
+     * @return Representação textual do intervalo.
+     */
+    @Override
+    public String toString() {
+        return minimum + ".." + maximum;
+    }
+
+}
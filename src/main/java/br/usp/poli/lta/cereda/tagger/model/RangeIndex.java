@@ -0,0 +1,360 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Implementa um índice de intervalos sobre um atributo numérico das
+ * publicações, mantido em arranjos primitivos ordenados por valor e
+ * identificador, de modo que uma busca por intervalo localiza seus extremos
+ * por busca binária. Inserções são acumuladas em uma área pendente e
+ * remoções são apenas marcadas; ambas são incorporadas aos arranjos
+ * ordenados assim que ultrapassam um limite, verificado a cada operação, de
+ * modo que a área pendente percorrida pelas remoções permanece pequena.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class RangeIndex {
+
+    private static final int COMPACTION_THRESHOLD = 1024;
+
+    private long[] values;
+    private long[] ids;
+    private int size;
+    private final BitSet removed;
+    private int garbage;
+    private long[] pendingValues;
+    private long[] pendingIds;
+    private int pending;
+
+    /**
+     * Construtor.
+     */
+    public RangeIndex() {
+        this.values = new long[0];
+        this.ids = new long[0];
+        this.removed = new BitSet();
+        this.pendingValues = new long[16];
+        this.pendingIds = new long[16];
+    }
+
+    /**
+     * Adiciona o valor de uma publicação ao índice.
+     * @param id Identificador da publicação.
+     * @param value Valor.
+     */
+    public void add(long id, long value) {
+        if (pending == pendingIds.length) {
+            pendingValues = Arrays.copyOf(pendingValues, pending * 2);
+            pendingIds = Arrays.copyOf(pendingIds, pending * 2);
+        }
+        pendingValues[pending] = value;
+        pendingIds[pending] = id;
+        pending++;
+        maintain();
+    }
+
+    /**
+     * Remove o valor de uma publicação do índice.
+     * @param id Identificador da publicação.
+     * @param value Valor previamente adicionado.
+     */
+    public void remove(long id, long value) {
+        for (int i = 0; i < pending; i++) {
+            if (pendingIds[i] == id && pendingValues[i] == value) {
+                pending--;
+                pendingIds[i] = pendingIds[pending];
+                pendingValues[i] = pendingValues[pending];
+                return;
+            }
+        }
+        int position = find(value, id);
+        if (position >= 0 && !removed.get(position)) {
+            removed.set(position);
+            garbage++;
+            maintain();
+        }
+    }
+
+    /**
+     * Remove todos os valores do índice.
+     */
+    public void clear() {
+        values = new long[0];
+        ids = new long[0];
+        size = 0;
+        removed.clear();
+        garbage = 0;
+        pending = 0;
+    }
+
+    /**
+     * Busca as publicações cujo valor pertence ao intervalo informado.
+     * @param minimum Menor valor, inclusive.
+     * @param maximum Maior valor, inclusive.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> search(long minimum, long maximum) {
+        maintain();
+        int from = lower(minimum);
+        int to = upper(maximum);
+        Set<Long> result = new HashSet<>(Math.max(16, (to - from + pending) * 4 / 3 + 1));
+        for (int i = from; i < to; i++) {
+            if (garbage == 0 || !removed.get(i)) {
+                result.add(ids[i]);
+            }
+        }
+        for (int i = 0; i < pending; i++) {
+            if (pendingValues[i] >= minimum && pendingValues[i] <= maximum) {
+                result.add(pendingIds[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estima, sem percorrer os valores, o número de publicações cujo valor
+     * pertence ao intervalo informado. A estimativa nunca é menor do que o
+     * número exato.
+     * @param minimum Menor valor, inclusive.
+     * @param maximum Maior valor, inclusive.
+     * @return Estimativa do número de publicações.
+     */
+    public int count(long minimum, long maximum) {
+        return Math.max(0, upper(maximum) - lower(minimum)) + pending;
+    }
+
+    /**
+     * Compacta o índice caso as inserções pendentes e as remoções marcadas
+     * ultrapassem o limite.
+     */
+    private void maintain() {
+        if (pending + garbage > Math.max(COMPACTION_THRESHOLD, size >>> 6)) {
+            compact();
+        }
+    }
+
+    /**
+     * Incorpora as inserções pendentes aos arranjos ordenados e descarta os
+     * valores removidos, como após uma carga em lote.
+     */
+    public void compact() {
+        if (pending == 0 && garbage == 0) {
+            return;
+        }
+        sort(pendingValues, pendingIds, 0, pending - 1);
+        int total = size - garbage + pending;
+        long[] mergedValues = new long[total];
+        long[] mergedIds = new long[total];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size || j < pending) {
+            if (i < size && removed.get(i)) {
+                i++;
+            } else if (j == pending || (i < size && compare(values[i], ids[i], pendingValues[j], pendingIds[j]) <= 0)) {
+                mergedValues[k] = values[i];
+                mergedIds[k++] = ids[i++];
+            } else {
+                mergedValues[k] = pendingValues[j];
+                mergedIds[k++] = pendingIds[j++];
+            }
+        }
+        values = mergedValues;
+        ids = mergedIds;
+        size = total;
+        removed.clear();
+        garbage = 0;
+        pending = 0;
+        if (pendingIds.length > 1024) {
+            pendingValues = new long[16];
+            pendingIds = new long[16];
+        }
+    }
+
+    /**
+     * Localiza a posição do par de valor e identificador nos arranjos
+     * ordenados.
+     * @param value Valor.
+     * @param id Identificador.
+     * @return Posição do par, ou um valor negativo caso não exista.
+     */
+    private int find(long value, long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(values[middle], ids[middle], value, id);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Obtém a primeira posição cujo valor é maior ou igual ao informado.
+     * @param value Valor.
+     * @return Posição.
+     */
+    private int lower(long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Obtém a primeira posição cujo valor é maior do que o informado.
+     * @param value Valor.
+     * @return Posição.
+     */
+    private int upper(long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compara dois pares de valor e identificador, primeiro pelo valor e
+     * depois pelo identificador.
+     * @param firstValue Valor do primeiro par.
+     * @param firstId Identificador do primeiro par.
+     * @param secondValue Valor do segundo par.
+     * @param secondId Identificador do segundo par.
+     * @return Resultado da comparação.
+     */
+    private static int compare(long firstValue, long firstId, long secondValue, long secondId) {
+        int result = Long.compare(firstValue, secondValue);
+        return result != 0 ? result : Long.compare(firstId, secondId);
+    }
+
+    /**
+     * Ordena os pares de valor e identificador de um trecho dos arranjos,
+     * com a mediana de três elementos como pivô e ordenação por inserção
+     * para trechos pequenos.
+     * @param values Valores.
+     * @param ids Identificadores.
+     * @param from Primeira posição, inclusive.
+     * @param to Última posição, inclusive.
+     */
+    private static void sort(long[] values, long[] ids, int from, int to) {
+        while (to - from > 16) {
+            int middle = (from + to) >>> 1;
+            if (compare(values[middle], ids[middle], values[from], ids[from]) < 0) {
+                swap(values, ids, middle, from);
+            }
+            if (compare(values[to], ids[to], values[from], ids[from]) < 0) {
+                swap(values, ids, to, from);
+            }
+            if (compare(values[to], ids[to], values[middle], ids[middle]) < 0) {
+                swap(values, ids, to, middle);
+            }
+            long pivotValue = values[middle];
+            long pivotId = ids[middle];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (compare(values[i], ids[i], pivotValue, pivotId) < 0) {
+                    i++;
+                }
+                while (compare(values[j], ids[j], pivotValue, pivotId) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, ids, i++, j--);
+                }
+            }
+            if (j - from < to - i) {
+                sort(values, ids, from, j);
+                from = i;
+            } else {
+                sort(values, ids, i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++) {
+            long value = values[i];
+            long id = ids[i];
+            int j = i - 1;
+            while (j >= from && compare(values[j], ids[j], value, id) > 0) {
+                values[j + 1] = values[j];
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            values[j + 1] = value;
+            ids[j + 1] = id;
+        }
+    }
+
+    /**
+     * Troca dois pares de posição.
+     * @param values Valores.
+     * @param ids Identificadores.
+     * @param first Primeira posição.
+     * @param second Segunda posição.
+     */
+    private static void swap(long[] values, long[] ids, int first, int second) {
+        long value = values[first];
+        values[first] = values[second];
+        values[second] = value;
+        long id = ids[first];
+        ids[first] = ids[second];
+        ids[second] = id;
+    }
+
+}
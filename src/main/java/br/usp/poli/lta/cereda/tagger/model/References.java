@@ -0,0 +1,155 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Representa as referências de arquivos de uma publicação de forma compacta:
+ * cada arquivo é guardado como o identificador de seu diretório em uma
+ * tabela de diretórios compartilhada e o nome do arquivo. Os objetos
+ * {@link File} são criados apenas quando as referências são percorridas.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class References implements Iterable<File> {
+
+    private static final int[] NO_DIRECTORIES = new int[0];
+    private static final String[] NO_NAMES = new String[0];
+
+    private final PathTable table;
+    private int[] directories;
+    private String[] names;
+
+    /**
+     * Construtor.
+     * @param table Tabela de diretórios.
+     */
+    public References(PathTable table) {
+        this.table = table;
+        this.directories = NO_DIRECTORIES;
+        this.names = NO_NAMES;
+    }
+
+    /**
+     * Obtém a tabela de diretórios das referências.
+     * @return Tabela de diretórios.
+     */
+    public PathTable getTable() {
+        return table;
+    }
+
+    /**
+     * Adiciona um arquivo às referências, caso ainda não exista.
+     * @param file Arquivo.
+     * @return Valor lógico indicando se o arquivo foi adicionado.
+     */
+    public synchronized boolean add(File file) {
+        int directory = table.intern(file.getParentFile());
+        String name = file.getName();
+        for (int i = 0; i < names.length; i++) {
+            if (directories[i] == directory && names[i].equals(name)) {
+                return false;
+            }
+        }
+        directories = Arrays.copyOf(directories, directories.length + 1);
+        names = Arrays.copyOf(names, names.length + 1);
+        directories[directories.length - 1] = directory;
+        names[names.length - 1] = name;
+        return true;
+    }
+
+    /**
+     * Obtém o número de arquivos referenciados.
+     * @return Número de arquivos.
+     */
+    public synchronized int size() {
+        return names.length;
+    }
+
+    /**
+     * Verifica se não há arquivos referenciados.
+     * @return Valor lógico indicando se não há arquivos.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Obtém os arquivos referenciados, na ordem em que foram adicionados.
+     * @return Conjunto de arquivos.
+     */
+    public Set<File> files() {
+        Set<File> result = new LinkedHashSet<>();
+        forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Percorre os arquivos referenciados, criando cada objeto {@link File}
+     * apenas quando visitado.
+     * @return Iterador de arquivos.
+     */
+    @Override
+    public synchronized Iterator<File> iterator() {
+        int[] folders = directories;
+        String[] files = names;
+        return new Iterator<File>() {
+
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < files.length;
+            }
+
+            @Override
+            public File next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                File directory = table.directory(folders[position]);
+                String name = files[position++];
+                return directory == null ? new File(name) : new File(directory, name);
+            }
+
+        };
+    }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+/**
+ * Define o armazenamento persistente do banco de dados de publicações. As
+ * alterações feitas por meio de {@link #put(Publication)} e
+ * {@link #remove(long)} só se tornam permanentes após {@link #commit()}.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public interface Storage extends Closeable {
+
+    /**
+     * Abre o armazenamento e percorre as publicações gravadas.
+     * @param consumer Consumidor de identificadores e publicações.
+     * @throws IOException O armazenamento existe, mas não pôde ser lido.
+     */
+    void load(BiConsumer<Long, Publication> consumer) throws IOException;
+
+    /**
+     * Obtém a publicação gravada com o identificador informado.
+     * @param identifier Identificador.
+     * @return Publicação, ou nulo caso não exista.
+     * @throws IOException O armazenamento não pôde ser lido.
+     */
+    Publication get(long identifier) throws IOException;
+
+    /**
+     * Insere ou substitui uma publicação.
+     * @param publication Publicação.
+     * @throws IOException O armazenamento não pôde ser alterado.
+     */
+    void put(Publication publication) throws IOException;
+
+    /**
+     * Remove a publicação com o identificador informado.
+     * @param identifier Identificador.
+     * @throws IOException O armazenamento não pôde ser alterado.
+     */
+    void remove(long identifier) throws IOException;
+
+    /**
+     * Percorre as publicações do armazenamento, incluindo as alterações ainda
+     * não gravadas.
+     * @param consumer Consumidor de identificadores e publicações.
+     * @throws IOException O armazenamento não pôde ser lido.
+     */
+    void iterate(BiConsumer<Long, Publication> consumer) throws IOException;
+
+    /**
+     * Torna permanentes as alterações pendentes.
+     * @throws IOException As alterações não puderam ser gravadas.
+     */
+    void commit() throws IOException;
+
+    /**
+     * Obtém o armazenamento adequado ao arquivo informado, de acordo com sua
+     * extensão: arquivos '.mv' ou '.mv.db' usam o armazenamento MVStore, e os
+     * demais, o armazenamento XML.
+     * @param location Arquivo do banco de dados.
+     * @return Armazenamento.
+     */
+    static Storage of(File location) {
+        String name = location.getName().toLowerCase();
+        if (name.endsWith(".mv") || name.endsWith(".mv.db")) {
+            return new MVStorage(location);
+        }
+        return new XMLStorage(location);
+    }
+
+}
@@ -0,0 +1,155 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Implementa uma árvore de prefixos sobre o vocabulário de etiquetas
+ * normalizadas, permitindo completar etiquetas e expandir consultas
+ * hierárquicas (por exemplo, {@code nlp/*}) sem percorrer todas as etiquetas.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class TagTrie {
+
+    private final Node root;
+
+    /**
+     * Construtor.
+     */
+    public TagTrie() {
+        this.root = new Node();
+    }
+
+    /**
+     * Adiciona uma chave à árvore.
+     * @param key Chave.
+     */
+    public void add(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), (Character t) -> new Node());
+        }
+        node.terminal = true;
+    }
+
+    /**
+     * Remove uma chave da árvore, descartando os nós que deixarem de levar a
+     * alguma chave.
+     * @param key Chave.
+     */
+    public void remove(String key) {
+        remove(root, key, 0);
+    }
+
+    /**
+     * Remove a chave a partir do nó informado.
+     * @param node Nó corrente.
+     * @param key Chave.
+     * @param depth Profundidade do nó corrente.
+     * @return Valor lógico indicando se o nó corrente pode ser descartado.
+     */
+    private static boolean remove(Node node, String key, int depth) {
+        if (depth == key.length()) {
+            node.terminal = false;
+        } else {
+            Node child = node.children.get(key.charAt(depth));
+            if (child != null && remove(child, key, depth + 1)) {
+                node.children.remove(key.charAt(depth));
+            }
+        }
+        return !node.terminal && node.children.isEmpty();
+    }
+
+    /**
+     * Remove todas as chaves da árvore.
+     */
+    public void clear() {
+        root.children.clear();
+        root.terminal = false;
+    }
+
+    /**
+     * Obtém as chaves iniciadas pelo prefixo informado, em ordem alfabética.
+     * @param prefix Prefixo.
+     * @param limit Número máximo de chaves, ou zero para todas.
+     * @return Lista de chaves.
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node != null) {
+            collect(node, new StringBuilder(prefix), result, limit <= 0 ? Integer.MAX_VALUE : limit);
+        }
+        return result;
+    }
+
+    /**
+     * Coleta as chaves da subárvore em ordem alfabética, interrompendo a
+     * visita ao atingir o limite.
+     * @param node Nó corrente.
+     * @param path Chave correspondente ao nó corrente.
+     * @param result Lista de chaves.
+     * @param limit Número máximo de chaves.
+     */
+    private static void collect(Node node, StringBuilder path, List<String> result, int limit) {
+        if (node.terminal) {
+            result.add(path.toString());
+        }
+        for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+            if (result.size() >= limit) {
+                return;
+            }
+            path.append(entry.getKey());
+            collect(entry.getValue(), path, result, limit);
+            path.setLength(path.length() - 1);
+        }
+    }
+
+    /**
+     * Representa um nó da árvore.
+     */
+    private static class Node {
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private boolean terminal;
+    }
+
+}
@@ -0,0 +1,444 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Implementa um índice invertido sobre os termos dos títulos das publicações,
+ * com suporte a consultas por termos, frases (entre aspas) e prefixos
+ * (terminados em asterisco). Cada publicação recebe um número de documento
+ * sequencial, de modo que as listas de ocorrências são sempre estendidas ao
+ * final e podem ser armazenadas com codificação diferencial em inteiros de
+ * tamanho variável. Publicações removidas são apenas marcadas e descartadas
+ * das listas em compactações periódicas.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class TitleIndex {
+
+    private static final int COMPACTION_THRESHOLD = 1024;
+
+    private final TreeMap<String, Postings> terms;
+    private final Map<Long, Integer> documents;
+    private final BitSet removed;
+    private long[] identifiers;
+    private int size;
+    private int garbage;
+
+    /**
+     * Construtor.
+     */
+    public TitleIndex() {
+        this.terms = new TreeMap<>();
+        this.documents = new HashMap<>();
+        this.removed = new BitSet();
+        this.identifiers = new long[1024];
+    }
+
+    /**
+     * Adiciona o título de uma publicação ao índice, substituindo o título
+     * previamente associado ao seu identificador.
+     * @param id Identificador da publicação.
+     * @param key Chave de busca do título da publicação.
+     */
+    public void add(long id, String key) {
+        remove(id);
+        int document = size++;
+        if (document == identifiers.length) {
+            identifiers = Arrays.copyOf(identifiers, identifiers.length * 2);
+        }
+        identifiers[document] = id;
+        documents.put(id, document);
+        Map<String, List<Integer>> occurrences = new LinkedHashMap<>();
+        List<String> tokens = Keys.tokenize(key);
+        for (int i = 0; i < tokens.size(); i++) {
+            occurrences.computeIfAbsent(tokens.get(i), (String t) -> new ArrayList<>()).add(i);
+        }
+        occurrences.forEach((String term, List<Integer> positions) -> {
+            terms.computeIfAbsent(term, (String t) -> new Postings()).append(document, positions);
+        });
+    }
+
+    /**
+     * Remove do índice o título associado ao identificador informado.
+     * @param id Identificador da publicação.
+     */
+    public void remove(long id) {
+        Integer document = documents.remove(id);
+        if (document != null) {
+            removed.set(document);
+            garbage++;
+            if (garbage > COMPACTION_THRESHOLD && garbage > size / 4) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Remove todas as entradas do índice.
+     */
+    public void clear() {
+        terms.clear();
+        documents.clear();
+        removed.clear();
+        size = 0;
+        garbage = 0;
+    }
+
+    /**
+     * Busca as publicações cujos títulos contêm todos os termos da consulta.
+     * Trechos entre aspas devem ocorrer em sequência no título, e termos
+     * terminados em asterisco correspondem a qualquer termo iniciado pelo
+     * prefixo que os antecede.
+     * @param query Consulta.
+     * @return Conjunto de identificadores.
+     */
+    public Set<Long> search(String query) {
+        int[] result = null;
+        String key = Keys.fold(query);
+        int position = 0;
+        while (position < key.length()) {
+            if (key.charAt(position) == ' ') {
+                position++;
+                continue;
+            }
+            int[] partial;
+            if (key.charAt(position) == '"') {
+                int end = key.indexOf('"', position + 1);
+                end = end < 0 ? key.length() : end;
+                partial = phrase(Keys.tokenize(key.substring(position + 1, end)));
+                position = end + 1;
+                if (partial == null) {
+                    continue;
+                }
+            } else {
+                int end = key.indexOf(' ', position);
+                end = end < 0 ? key.length() : end;
+                String token = key.substring(position, end);
+                position = end;
+                List<String> tokens = Keys.tokenize(token);
+                if (tokens.isEmpty()) {
+                    continue;
+                }
+                boolean prefix = token.endsWith("*");
+                partial = null;
+                for (int i = 0; i < tokens.size(); i++) {
+                    int[] current = prefix && i == tokens.size() - 1 ? prefix(tokens.get(i)) : term(tokens.get(i));
+                    partial = partial == null ? current : intersect(partial, current);
+                }
+            }
+            result = result == null ? partial : intersect(result, partial);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        Set<Long> ids = new HashSet<>();
+        if (result != null) {
+            for (int document : result) {
+                if (!removed.get(document)) {
+                    ids.add(identifiers[document]);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Obtém os documentos que contêm o termo informado.
+     * @param term Termo.
+     * @return Documentos, em ordem crescente.
+     */
+    private int[] term(String term) {
+        Postings postings = terms.get(term);
+        return postings == null ? new int[0] : postings.documents();
+    }
+
+    /**
+     * Obtém os documentos que contêm algum termo iniciado pelo prefixo
+     * informado.
+     * @param prefix Prefixo.
+     * @return Documentos, em ordem crescente.
+     */
+    private int[] prefix(String prefix) {
+        BitSet union = new BitSet(size);
+        for (Postings postings : terms.subMap(prefix, true, prefix.concat(String.valueOf(Character.MAX_VALUE)), false).values()) {
+            for (int document : postings.documents()) {
+                union.set(document);
+            }
+        }
+        return union.stream().toArray();
+    }
+
+    /**
+     * Obtém os documentos que contêm os termos informados em sequência.
+     * @param tokens Termos da frase.
+     * @return Documentos, em ordem crescente, ou nulo se a frase não possuir
+     * termos.
+     */
+    private int[] phrase(List<String> tokens) {
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        if (tokens.size() == 1) {
+            return term(tokens.get(0));
+        }
+        List<int[]> documents = new ArrayList<>();
+        List<int[][]> positions = new ArrayList<>();
+        int[] candidates = null;
+        for (String token : tokens) {
+            Postings postings = terms.get(token);
+            if (postings == null) {
+                return new int[0];
+            }
+            int[] current = postings.documents();
+            documents.add(current);
+            positions.add(postings.positions());
+            candidates = candidates == null ? current : intersect(candidates, current);
+        }
+        int count = 0;
+        int[] result = new int[candidates.length];
+        for (int document : candidates) {
+            int[] first = positions.get(0)[Arrays.binarySearch(documents.get(0), document)];
+            for (int start : first) {
+                boolean match = true;
+                for (int i = 1; i < tokens.size() && match; i++) {
+                    int[] next = positions.get(i)[Arrays.binarySearch(documents.get(i), document)];
+                    match = Arrays.binarySearch(next, start + i) >= 0;
+                }
+                if (match) {
+                    result[count++] = document;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Calcula a interseção de duas listas ordenadas de documentos.
+     * @param first Primeira lista.
+     * @param second Segunda lista.
+     * @return Interseção, em ordem crescente.
+     */
+    private static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Descarta das listas de ocorrências os documentos removidos,
+     * renumerando os documentos restantes em sequência.
+     */
+    private void compact() {
+        int[] renumber = new int[size];
+        int count = 0;
+        for (int document = 0; document < size; document++) {
+            if (removed.get(document)) {
+                renumber[document] = -1;
+            } else {
+                renumber[document] = count;
+                identifiers[count] = identifiers[document];
+                count++;
+            }
+        }
+        Iterator<Postings> iterator = terms.values().iterator();
+        while (iterator.hasNext()) {
+            Postings postings = iterator.next();
+            if (!postings.rewrite(renumber)) {
+                iterator.remove();
+            }
+        }
+        documents.replaceAll((Long id, Integer document) -> renumber[document]);
+        removed.clear();
+        size = count;
+        garbage = 0;
+    }
+
+    /**
+     * Representa a lista de ocorrências de um termo. Cada ocorrência é
+     * codificada como a diferença para o documento anterior, seguida da
+     * quantidade de posições e das diferenças entre posições consecutivas,
+     * todas como inteiros de tamanho variável.
+     */
+    private static class Postings {
+
+        private byte[] data = new byte[8];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        /**
+         * Adiciona uma ocorrência ao final da lista.
+         * @param document Documento, maior que o último adicionado.
+         * @param positions Posições do termo no título.
+         */
+        private void append(int document, List<Integer> positions) {
+            write(document - last);
+            write(positions.size());
+            int previous = 0;
+            for (int position : positions) {
+                write(position - previous);
+                previous = position;
+            }
+            last = document;
+            count++;
+        }
+
+        /**
+         * Obtém os documentos da lista.
+         * @return Documentos, em ordem crescente.
+         */
+        private int[] documents() {
+            int[] result = new int[count];
+            int[] cursor = {0};
+            int document = -1;
+            for (int i = 0; i < count; i++) {
+                document += read(cursor);
+                result[i] = document;
+                int positions = read(cursor);
+                for (int j = 0; j < positions; j++) {
+                    read(cursor);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Obtém as posições do termo em cada documento da lista.
+         * @return Posições, na mesma ordem dos documentos.
+         */
+        private int[][] positions() {
+            int[][] result = new int[count][];
+            int[] cursor = {0};
+            for (int i = 0; i < count; i++) {
+                read(cursor);
+                int[] positions = new int[read(cursor)];
+                int position = 0;
+                for (int j = 0; j < positions.length; j++) {
+                    position += read(cursor);
+                    positions[j] = position;
+                }
+                result[i] = positions;
+            }
+            return result;
+        }
+
+        /**
+         * Reescreve a lista conforme a renumeração dos documentos, descartando
+         * os documentos removidos.
+         * @param renumber Novos números dos documentos, ou -1 para os
+         * documentos removidos.
+         * @return Valor lógico indicando se a lista ainda possui ocorrências.
+         */
+        private boolean rewrite(int[] renumber) {
+            int[] documents = documents();
+            int[][] positions = positions();
+            data = new byte[Math.max(8, length)];
+            length = 0;
+            count = 0;
+            last = -1;
+            for (int i = 0; i < documents.length; i++) {
+                int document = renumber[documents[i]];
+                if (document >= 0) {
+                    List<Integer> list = new ArrayList<>(positions[i].length);
+                    for (int position : positions[i]) {
+                        list.add(position);
+                    }
+                    append(document, list);
+                }
+            }
+            data = Arrays.copyOf(data, Math.max(8, length));
+            return count > 0;
+        }
+
+        /**
+         * Escreve um inteiro não negativo de tamanho variável.
+         * @param value Valor.
+         */
+        private void write(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length + (data.length >> 1) + 5);
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        /**
+         * Lê um inteiro não negativo de tamanho variável.
+         * @param cursor Posição de leitura, atualizada após a leitura.
+         * @return Valor.
+         */
+        private int read(int[] cursor) {
+            int value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data[cursor[0]++];
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+    }
+
+}
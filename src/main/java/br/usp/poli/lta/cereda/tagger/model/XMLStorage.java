@@ -0,0 +1,215 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.model;
+
+import br.usp.poli.lta.cereda.tagger.utils.Messages;
+import br.usp.poli.lta.cereda.tagger.utils.Utils;
+import com.thoughtworks.xstream.XStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Implementa o armazenamento do banco de dados em um arquivo XML, no formato
+ * do XStream. O mapa completo de publicações é mantido em memória e
+ * regravado a cada gravação.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class XMLStorage implements Storage {
+
+    private static final long PIPELINE_THRESHOLD = 16L * 1024 * 1024;
+
+    private final File location;
+    private final Map<Long, Publication> mapping;
+
+    /**
+     * Construtor.
+     * @param location Arquivo XML.
+     */
+    public XMLStorage(File location) {
+        this.location = location;
+        this.mapping = new HashMap<>();
+    }
+
+    /**
+     * Obtém a instância do XStream configurada para o formato do banco de
+     * dados.
+     * @return Instância do XStream.
+     */
+    private static XStream getXStream() {
+        XStream xstream = new XStream();
+        xstream.allowTypes(new Class[]{Publication.class});
+        xstream.alias("publication", Publication.class);
+        xstream.omitField(Publication.class, "references");
+        xstream.omitField(Publication.class, "titleKey");
+        xstream.omitField(Publication.class, "authorKeys");
+        xstream.omitField(Publication.class, "tagKeys");
+        return xstream;
+    }
+
+    /**
+     * Carrega o mapa de publicações a partir do arquivo XML, entregando cada
+     * publicação à medida que é lida. Arquivos grandes são lidos em uma thread
+     * dedicada, em paralelo ao consumo; arquivos em um formato não suportado
+     * pela leitura incremental são carregados pelo XStream. Um arquivo
+     * inexistente ou vazio resulta em um mapa vazio; um arquivo ilegível
+     * resulta em exceção, para que uma gravação posterior não o sobrescreva.
+     * Caso a leitura incremental falhe, o consumidor pode receber novamente
+     * as publicações já entregues.
+     * @param consumer Consumidor de identificadores e publicações.
+     * @throws IOException O arquivo existe, mas não pôde ser lido.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void load(BiConsumer<Long, Publication> consumer) throws IOException {
+        mapping.clear();
+        if (!location.exists() || location.length() == 0) {
+            return;
+        }
+        BiConsumer<Long, Publication> collector = (Long key, Publication publication) -> {
+            mapping.put(key, publication);
+            consumer.accept(key, publication);
+        };
+        try (InputStream input = Utils.openStream(location)) {
+            if (location.length() > PIPELINE_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1) {
+                Loader.load(input, collector, 1024);
+            } else {
+                Loader.load(input, collector);
+            }
+            return;
+        } catch (InterruptedException exception) {
+            mapping.clear();
+            Thread.currentThread().interrupt();
+        } catch (Exception exception) {
+            mapping.clear();
+        }
+        try (InputStream input = Utils.openStream(location)) {
+            mapping.putAll((Map<Long, Publication>) getXStream().fromXML(input));
+            mapping.forEach(consumer);
+        } catch (Exception exception) {
+            throw new IOException(Messages.getMessage("DATABASE_CORRUPTED", location.getAbsolutePath()), exception);
+        }
+    }
+
+    /**
+     * Obtém a publicação com o identificador informado.
+     * @param identifier Identificador.
+     * @return Publicação, ou nulo caso não exista.
+     */
+    @Override
+    public Publication get(long identifier) {
+        return mapping.get(identifier);
+    }
+
+    /**
+     * Insere ou substitui uma publicação no mapa em memória.
+     * @param publication Publicação.
+     */
+    @Override
+    public void put(Publication publication) {
+        mapping.put(publication.getIdentifier(), publication);
+    }
+
+    /**
+     * Remove uma publicação do mapa em memória.
+     * @param identifier Identificador.
+     */
+    @Override
+    public void remove(long identifier) {
+        mapping.remove(identifier);
+    }
+
+    /**
+     * Percorre as publicações do mapa em memória.
+     * @param consumer Consumidor de identificadores e publicações.
+     */
+    @Override
+    public void iterate(BiConsumer<Long, Publication> consumer) {
+        mapping.forEach(consumer);
+    }
+
+    /**
+     * Realiza a gravação efetiva do mapa de publicações no arquivo XML. O
+     * conteúdo é gravado em um arquivo temporário no mesmo diretório,
+     * sincronizado com o disco e então renomeado atomicamente sobre o arquivo
+     * original, que permanece intacto em caso de falha. Arquivos com extensão
+     * '.gz' são gravados de forma compactada.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    @Override
+    public void commit() throws IOException {
+        Path target = location.getAbsoluteFile().toPath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temporary.toFile());
+                    OutputStream output = Utils.isCompressed(location) ? new GZIPOutputStream(stream, 65536) : stream;
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 65536)) {
+                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+                getXStream().toXML(mapping, writer);
+                writer.flush();
+                if (output instanceof GZIPOutputStream) {
+                    ((GZIPOutputStream) output).finish();
+                }
+                stream.getFD().sync();
+            }
+            Utils.replaceFile(temporary, target);
+        } catch (Exception exception) {
+            throw new IOException(Messages.getMessage("DATABASE_COMMIT_ERROR", location.getAbsolutePath()), exception);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Libera o mapa em memória.
+     */
+    @Override
+    public void close() {
+        mapping.clear();
+    }
+
+}
@@ -0,0 +1,275 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import br.usp.poli.lta.cereda.tagger.model.Codec;
+import br.usp.poli.lta.cereda.tagger.model.Publication;
+import br.usp.poli.lta.cereda.tagger.utils.Messages;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import org.apache.commons.io.input.BoundedInputStream;
+
+/**
+ * Implementa o diário de uma análise de arquivos, no qual cada arquivo
+ * processado é registrado juntamente com o tamanho, a data de modificação e
+ * a publicação obtida. O diário é gravado por acréscimo e sincronizado com o
+ * disco periodicamente; caso a análise seja interrompida, uma nova análise
+ * com o mesmo diário reaproveita os arquivos já processados que não foram
+ * modificados, produzindo o mesmo resultado de uma análise ininterrupta. A
+ * primeira linha identifica o tipo da análise, de modo que o diário de uma
+ * análise diferente é descartado. Uma última linha sem quebra de linha,
+ * resultante de uma interrupção durante a gravação, é ignorada e removida do
+ * diário antes que novos registros sejam acrescentados. Um diário concluído
+ * pode ser selado com um registro final contendo o número de registros, de
+ * modo que um arquivo parcial incompleto seja identificado na leitura.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Checkpoint implements Closeable {
+
+    private static final String SIGNATURE = "tagger-checkpoint";
+    private static final int RECORDS = 1000;
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+    private final Map<String, String> entries;
+    private final FileOutputStream stream;
+    private final Writer writer;
+    private int records;
+    private long written;
+    private long flushed;
+
+    /**
+     * Construtor. Os registros de um diário existente do mesmo tipo são
+     * carregados, e novos registros são acrescentados ao final.
+     * @param location Arquivo do diário.
+     * @param kind Tipo da análise.
+     * @throws IOException O diário não pôde ser lido ou aberto para gravação.
+     */
+    public Checkpoint(File location, String kind) throws IOException {
+        this.entries = new HashMap<>();
+        String header = SIGNATURE.concat("\t").concat(kind);
+        boolean valid = false;
+        long complete = 0;
+        if (location.isFile()) {
+            complete = complete(location);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new BoundedInputStream(new FileInputStream(location), complete), StandardCharsets.UTF_8), 65536)) {
+                valid = header.equals(reader.readLine());
+                String line;
+                while (valid && (line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", 2);
+                    if (fields.length == 2 && !fields[0].equals(SIGNATURE)) {
+                        entries.put(fields[0], fields[1]);
+                        written++;
+                    }
+                }
+            }
+        }
+        this.stream = new FileOutputStream(location, valid);
+        if (valid) {
+            stream.getChannel().truncate(complete);
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 65536);
+        if (!valid) {
+            writer.write(header.concat("\n"));
+        }
+        this.flushed = System.nanoTime();
+    }
+
+    /**
+     * Lê todos os registros de um diário selado, entregando ao consumidor
+     * cada arquivo e a respectiva publicação, na ordem em que foram gravados.
+     * @param location Arquivo do diário.
+     * @param kind Tipo da análise.
+     * @param consumer Consumidor dos arquivos e publicações.
+     * @throws IOException O diário não pôde ser lido, é de outro tipo,
+     * contém um registro inválido ou não foi selado.
+     */
+    public static void read(File location, String kind, BiConsumer<File, Publication> consumer) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(location), StandardCharsets.UTF_8), 65536)) {
+            String line = reader.readLine();
+            int number = 1;
+            if (!SIGNATURE.concat("\t").concat(kind).equals(line)) {
+                throw new IOException(Messages.getMessage("PARTIAL_ERROR", number, location.getAbsolutePath()));
+            }
+            long count = 0;
+            boolean sealed = false;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (sealed || (line.startsWith(SIGNATURE.concat("\t")) && !line.equals(trailer(count)))) {
+                    throw new IOException(Messages.getMessage("PARTIAL_ERROR", number, location.getAbsolutePath()));
+                }
+                if (line.equals(trailer(count))) {
+                    sealed = true;
+                    continue;
+                }
+                String[] fields = line.split("\t", 4);
+                try {
+                    if (fields.length != 4) {
+                        throw new IllegalArgumentException(line);
+                    }
+                    consumer.accept(new File(Codec.unescape(fields[0])), Codec.decode(fields[3]));
+                    count++;
+                } catch (IllegalArgumentException exception) {
+                    throw new IOException(Messages.getMessage("PARTIAL_ERROR", number, location.getAbsolutePath()), exception);
+                }
+            }
+            if (!sealed) {
+                throw new IOException(Messages.getMessage("PARTIAL_INCOMPLETE", location.getAbsolutePath()));
+            }
+        }
+    }
+
+    /**
+     * Obtém o registro final de um diário selado.
+     * @param count Número de registros do diário.
+     * @return Registro final.
+     */
+    private static String trailer(long count) {
+        return SIGNATURE.concat("\tend\t").concat(String.valueOf(count));
+    }
+
+    /**
+     * Obtém o tamanho do trecho do diário composto apenas por linhas
+     * completas, isto é, até a última quebra de linha, inclusive.
+     * @param location Arquivo do diário.
+     * @return Número de bytes das linhas completas.
+     * @throws IOException O diário não pôde ser lido.
+     */
+    private static long complete(File location) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(location, "r")) {
+            byte[] buffer = new byte[4096];
+            long end = file.length();
+            while (end > 0) {
+                int count = (int) Math.min(buffer.length, end);
+                file.seek(end - count);
+                file.readFully(buffer, 0, count);
+                for (int i = count - 1; i >= 0; i--) {
+                    if (buffer[i] == '\n') {
+                        return end - count + i + 1;
+                    }
+                }
+                end -= count;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Obtém a publicação registrada para o arquivo, caso o arquivo não tenha
+     * sido modificado desde o registro.
+     * @param file Arquivo.
+     * @return Publicação registrada, ou nulo.
+     */
+    public Publication get(File file) {
+        String entry = entries.get(Codec.escape(file.getAbsolutePath()));
+        if (entry == null) {
+            return null;
+        }
+        String[] fields = entry.split("\t", 3);
+        try {
+            if (fields.length == 3 && Long.parseLong(fields[0]) == file.length() && Long.parseLong(fields[1]) == file.lastModified()) {
+                return Codec.decode(fields[2]);
+            }
+        } catch (IllegalArgumentException exception) {
+            // quack
+        }
+        return null;
+    }
+
+    /**
+     * Registra a publicação obtida do arquivo, sincronizando o diário com o
+     * disco periodicamente.
+     * @param file Arquivo.
+     * @param publication Publicação.
+     * @throws IOException O diário não pôde ser gravado.
+     */
+    public void put(File file, Publication publication) throws IOException {
+        writer.write(String.format("%s\t%d\t%d\t%s\n", Codec.escape(file.getAbsolutePath()), file.length(), file.lastModified(), Codec.encode(publication)));
+        records++;
+        written++;
+        if (records >= RECORDS || System.nanoTime() - flushed > INTERVAL) {
+            sync();
+        }
+    }
+
+    /**
+     * Sela o diário de uma análise concluída, gravando o registro final com o
+     * número de registros e sincronizando o diário com o disco. Nenhum
+     * registro deve ser acrescentado após o selo.
+     * @throws IOException O diário não pôde ser gravado.
+     */
+    public void seal() throws IOException {
+        writer.write(trailer(written).concat("\n"));
+        sync();
+    }
+
+    /**
+     * Grava os registros pendentes e sincroniza o diário com o disco.
+     * @throws IOException O diário não pôde ser gravado.
+     */
+    private void sync() throws IOException {
+        writer.flush();
+        stream.getFD().sync();
+        records = 0;
+        flushed = System.nanoTime();
+    }
+
+    /**
+     * Fecha o diário, gravando os registros pendentes.
+     * @throws IOException O diário não pôde ser gravado.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,258 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Implementa a busca por arquivos duplicados em um diretório. Os arquivos são
+ * agrupados inicialmente pelo tamanho; apenas os que compartilham o tamanho
+ * com outro arquivo têm calculada uma impressão parcial, obtida do início, do
+ * final e do tamanho do arquivo, e apenas os que ainda colidem, além dos
+ * arquivos pequenos, têm o conteúdo inteiro lido para o cálculo de um hash
+ * SHA-256. Ao contrário do CRC32 usado como identificador das publicações, o
+ * SHA-256 não admite colisões práticas, de modo que arquivos com o mesmo hash
+ * podem ser considerados idênticos. Arquivos vazios, que não ocupam espaço
+ * recuperável, são ignorados; arquivos que não puderam ser lidos são
+ * registrados nas estatísticas e não participam dos grupos.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Duplicates {
+
+    private static final int BLOCK = 4096;
+
+    private final Settings settings;
+    private final LongAdder read;
+    private final List<List<File>> groups;
+    private long files;
+    private long bytes;
+
+    /**
+     * Construtor.
+     * @param settings Configurações da análise.
+     */
+    public Duplicates(Settings settings) {
+        this.settings = settings;
+        this.read = new LongAdder();
+        this.groups = new ArrayList<>();
+    }
+
+    /**
+     * Busca arquivos duplicados no diretório informado.
+     * @param directory Diretório.
+     * @param statistics Estatísticas da análise.
+     * @throws IOException A análise foi interrompida.
+     */
+    public void find(File directory, Statistics statistics) throws IOException {
+        Map<Long, List<File>> sizes = new HashMap<>();
+        new Walker(settings).walk(directory, (File file) -> {
+            long length = file.length();
+            if (length > 0) {
+                sizes.computeIfAbsent(length, (Long t) -> new ArrayList<>()).add(file);
+            }
+            files++;
+            bytes += length;
+        }, statistics);
+        Map<Boolean, List<List<File>>> candidates = sizes.entrySet().stream().filter((Map.Entry<Long, List<File>> t) -> t.getValue().size() > 1).collect(Collectors.partitioningBy((Map.Entry<Long, List<File>> t) -> t.getKey() <= 2 * BLOCK, Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+        List<List<File>> partial = collisions(run(candidates.get(false), (File file, Long input) -> fingerprint(file), (File file) -> Math.min(file.length(), 2 * BLOCK), statistics));
+        partial.addAll(candidates.get(true));
+        List<List<File>> complete = collisions(run(partial, (File file, String input) -> digest(file), File::length, statistics));
+        complete.stream().map((List<File> t) -> t.stream().sorted().collect(Collectors.toList())).sorted(Comparator.comparingLong((List<File> t) -> -reclaimable(t)).thenComparing((List<File> t) -> t.get(0))).forEach(groups::add);
+    }
+
+    /**
+     * Obtém os grupos de arquivos duplicados, em ordem decrescente de espaço
+     * recuperável.
+     * @return Lista de grupos de arquivos.
+     */
+    public List<List<File>> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Obtém o número de arquivos analisados.
+     * @return Número de arquivos.
+     */
+    public long getFiles() {
+        return files;
+    }
+
+    /**
+     * Obtém o tamanho total dos arquivos analisados.
+     * @return Número de bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Obtém o número de bytes lidos para o cálculo de impressões e hashes.
+     * @return Número de bytes.
+     */
+    public long getRead() {
+        return read.sum();
+    }
+
+    /**
+     * Obtém o espaço recuperável com a remoção das cópias excedentes.
+     * @return Número de bytes.
+     */
+    public long getReclaimable() {
+        return groups.stream().mapToLong(Duplicates::reclaimable).sum();
+    }
+
+    /**
+     * Obtém o espaço recuperável de um grupo de arquivos duplicados, mantendo
+     * apenas uma cópia.
+     * @param group Grupo de arquivos.
+     * @return Número de bytes.
+     */
+    public static long reclaimable(List<File> group) {
+        return (group.size() - 1) * group.get(0).length();
+    }
+
+    /**
+     * Aplica a tarefa em paralelo aos arquivos dos grupos informados,
+     * agrupando os arquivos de acordo com o tamanho e o resultado da tarefa.
+     * @param <T> Tipo do resultado da tarefa.
+     * @param groups Grupos de arquivos.
+     * @param task Tarefa.
+     * @param cost Função que fornece o número de bytes lidos de cada arquivo
+     * pela tarefa.
+     * @param statistics Estatísticas da análise.
+     * @return Grupos de arquivos com o mesmo tamanho e resultado.
+     * @throws IOException A análise foi interrompida.
+     */
+    private <T> Collection<List<File>> run(Collection<List<File>> groups, Scanner.Task<T> task, ToLongFunction<File> cost, Statistics statistics) throws IOException {
+        Map<Map.Entry<Long, T>, List<File>> result = new HashMap<>();
+        try (Scanner<T> scanner = new Scanner<>(settings, task, (File file, T value) -> {
+            result.computeIfAbsent(new SimpleImmutableEntry<>(file.length(), value), (Map.Entry<Long, T> t) -> new ArrayList<>()).add(file);
+        }, statistics, true, cost)) {
+            for (List<File> group : groups) {
+                for (File file : group) {
+                    scanner.submit(file);
+                }
+            }
+            scanner.finish();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        return result.values();
+    }
+
+    /**
+     * Obtém os grupos com mais de um arquivo.
+     * @param groups Grupos de arquivos.
+     * @return Lista de grupos com colisões.
+     */
+    private static List<List<File>> collisions(Collection<List<File>> groups) {
+        return groups.stream().filter((List<File> t) -> t.size() > 1).collect(Collectors.toList());
+    }
+
+    /**
+     * Calcula a impressão parcial do arquivo, a partir do tamanho e dos blocos
+     * inicial e final do conteúdo.
+     * @param file Arquivo.
+     * @return Impressão parcial.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    private long fingerprint(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            long length = input.length();
+            byte[] buffer = new byte[(int) Math.min(length, 2 * BLOCK)];
+            if (length <= 2 * BLOCK) {
+                input.readFully(buffer);
+            } else {
+                input.readFully(buffer, 0, BLOCK);
+                input.seek(length - BLOCK);
+                input.readFully(buffer, BLOCK, BLOCK);
+            }
+            read.add(buffer.length);
+            crc.update(ByteBuffer.allocate(Long.BYTES).putLong(length).array());
+            crc.update(buffer);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Calcula o hash SHA-256 do conteúdo inteiro do arquivo.
+     * @param file Arquivo.
+     * @return Representação hexadecimal do hash.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    private String digest(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IOException(exception);
+        }
+        byte[] buffer = new byte[65536];
+        try (InputStream input = new FileInputStream(file)) {
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+                read.add(count);
+            }
+        }
+        StringBuilder result = new StringBuilder(64);
+        for (byte value : digest.digest()) {
+            result.append(String.format("%02x", value));
+        }
+        return result.toString();
+    }
+
+}
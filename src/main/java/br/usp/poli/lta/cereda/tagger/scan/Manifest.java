@@ -0,0 +1,422 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import br.usp.poli.lta.cereda.tagger.model.PathTable;
+import br.usp.poli.lta.cereda.tagger.model.Publication;
+import br.usp.poli.lta.cereda.tagger.model.References;
+import br.usp.poli.lta.cereda.tagger.utils.Messages;
+import br.usp.poli.lta.cereda.tagger.utils.Utils;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Implementa a leitura sequencial de um manifesto de publicações, no formato
+ * CSV ou JSON Lines. Cada registro informa o caminho de um arquivo PDF e os
+ * respectivos título, autores e etiquetas; caminhos relativos são resolvidos
+ * a partir do diretório do manifesto. No formato CSV, as colunas são, nesta
+ * ordem, caminho, título, autores e etiquetas, e uma linha de cabeçalho é
+ * opcional; no formato JSON Lines, cada linha é um objeto com as chaves
+ * "path", "title", "authors" e "tags", estas duas últimas como texto separado
+ * por ponto-e-vírgula ou como lista de textos.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Manifest implements Closeable {
+
+    private final File location;
+    private final BufferedReader reader;
+    private final boolean json;
+    private final PathTable paths;
+    private int line;
+
+    /**
+     * Construtor.
+     * @param location Arquivo de manifesto.
+     * @throws IOException O arquivo não pôde ser aberto.
+     */
+    public Manifest(File location) throws IOException {
+        this.location = location;
+        this.reader = new BufferedReader(new InputStreamReader(Utils.openStream(location), StandardCharsets.UTF_8));
+        String name = location.getName().toLowerCase().replaceAll("\\.gz$", "");
+        this.json = name.endsWith(".jsonl") || name.endsWith(".json") || name.endsWith(".ndjson");
+        this.paths = new PathTable();
+        this.line = 0;
+    }
+
+    /**
+     * Obtém o próximo registro do manifesto, como uma publicação cujo conjunto
+     * de referências contém o arquivo correspondente.
+     * @return Publicação, ou nulo ao final do manifesto.
+     * @throws IOException O registro corrente é inválido.
+     */
+    public Publication next() throws IOException {
+        String text;
+        while ((text = read()) != null) {
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                Map<String, String> record = json ? parseObject(text) : parseRecord(text);
+                if (record == null) {
+                    continue;
+                }
+                String path = record.getOrDefault("path", "").trim();
+                if (path.isEmpty()) {
+                    throw new IllegalArgumentException("path");
+                }
+                File file = new File(path);
+                if (!file.isAbsolute()) {
+                    file = new File(location.getAbsoluteFile().getParentFile(), path);
+                }
+                Publication publication = Publication.blank();
+                publication.setTitle(record.getOrDefault("title", ""));
+                publication.setAuthorsFromString(record.getOrDefault("authors", ""));
+                publication.setTagsFromString(record.getOrDefault("tags", ""));
+                publication.sanitize();
+                publication.cleanCollections();
+                publication.setReferences(new References(paths));
+                publication.getReferences().add(file);
+                return publication;
+            } catch (RuntimeException exception) {
+                throw new IOException(Messages.getMessage("MANIFEST_ERROR", line, location.getAbsolutePath(), exception.getMessage()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Grava um manifesto no formato JSON Lines com um registro para cada
+     * arquivo associado às publicações informadas, de modo que os metadados
+     * possam ser gravados posteriormente nos arquivos. Publicações sem
+     * arquivos associados são ignoradas.
+     * @param location Arquivo de manifesto.
+     * @param publications Publicações.
+     * @return Número de registros gravados.
+     * @throws IOException O manifesto não pôde ser gravado.
+     */
+    public static int write(File location, Collection<Publication> publications) throws IOException {
+        int count = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(location), StandardCharsets.UTF_8))) {
+            for (Publication publication : publications) {
+                if (publication.getReferences() == null) {
+                    continue;
+                }
+                for (File file : new TreeSet<>(publication.getReferences().files())) {
+                    writer.write(String.format("{\"path\":%s,\"title\":%s,\"authors\":%s,\"tags\":%s}\n", quote(file.getAbsolutePath()), quote(publication.getTitle()), quote(publication.getAuthors()), quote(new TreeSet<>(publication.getTags()))));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Representa a lista de textos como uma lista JSON.
+     * @param values Lista de textos.
+     * @return Lista JSON.
+     */
+    private static String quote(Collection<String> values) {
+        return values.stream().map(Manifest::quote).collect(Collectors.joining(",", "[", "]"));
+    }
+
+    /**
+     * Representa o texto como um texto JSON entre aspas.
+     * @param value Texto, possivelmente nulo.
+     * @return Texto JSON.
+     */
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Fecha o manifesto.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Lê a próxima linha do manifesto.
+     * @return Linha, ou nulo ao final do manifesto.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    private String read() throws IOException {
+        String text = reader.readLine();
+        if (text != null) {
+            line++;
+        }
+        return text;
+    }
+
+    /**
+     * Analisa um registro CSV, que pode se estender por mais de uma linha
+     * quando um campo entre aspas contém quebras de linha.
+     * @param text Primeira linha do registro.
+     * @return Mapa de campos, ou nulo se o registro for o cabeçalho.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    private Map<String, String> parseRecord(String text) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) {
+                    break;
+                }
+                String next = read();
+                if (next == null) {
+                    throw new IllegalArgumentException("unterminated quote");
+                }
+                field.append('\n');
+                text = next;
+                i = 0;
+                continue;
+            }
+            char c = text.charAt(i++);
+            if (quoted) {
+                if (c == '"' && i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        if (line == 1 && fields.get(0).trim().equalsIgnoreCase("path")) {
+            return null;
+        }
+        String[] keys = {"path", "title", "authors", "tags"};
+        Map<String, String> record = new HashMap<>();
+        for (int j = 0; j < keys.length && j < fields.size(); j++) {
+            record.put(keys[j], fields.get(j));
+        }
+        return record;
+    }
+
+    /**
+     * Analisa um objeto JSON cujos valores são textos, listas de textos ou
+     * nulos. Listas são convertidas em texto separado por ponto-e-vírgula.
+     * @param text Linha contendo o objeto.
+     * @return Mapa de campos.
+     */
+    private static Map<String, String> parseObject(String text) {
+        Map<String, String> record = new HashMap<>();
+        int[] position = {skip(text, 0)};
+        expect(text, position, '{');
+        if (peek(text, position) == '}') {
+            position[0]++;
+            return record;
+        }
+        while (true) {
+            String key = parseString(text, position);
+            expect(text, position, ':');
+            String value;
+            char c = peek(text, position);
+            if (c == '[') {
+                position[0]++;
+                List<String> items = new ArrayList<>();
+                if (peek(text, position) == ']') {
+                    position[0]++;
+                } else {
+                    while (true) {
+                        items.add(parseString(text, position));
+                        if (peek(text, position) == ',') {
+                            position[0]++;
+                        } else {
+                            expect(text, position, ']');
+                            break;
+                        }
+                    }
+                }
+                value = String.join(";", items);
+            } else if (text.startsWith("null", position[0])) {
+                position[0] += 4;
+                value = "";
+            } else {
+                value = parseString(text, position);
+            }
+            record.put(key, value);
+            if (peek(text, position) == ',') {
+                position[0]++;
+            } else {
+                expect(text, position, '}');
+                break;
+            }
+        }
+        if (skip(text, position[0]) != text.length()) {
+            throw new IllegalArgumentException("trailing characters");
+        }
+        return record;
+    }
+
+    /**
+     * Analisa um texto JSON entre aspas.
+     * @param text Linha.
+     * @param position Posição corrente, atualizada ao final do texto.
+     * @return Texto.
+     */
+    private static String parseString(String text, int[] position) {
+        expect(text, position, '"');
+        StringBuilder sb = new StringBuilder();
+        int i = position[0];
+        while (true) {
+            if (i >= text.length()) {
+                throw new IllegalArgumentException("unterminated string");
+            }
+            char c = text.charAt(i++);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                if (i >= text.length()) {
+                    throw new IllegalArgumentException("unterminated string");
+                }
+                char e = text.charAt(i++);
+                switch (e) {
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (i + 4 > text.length()) {
+                            throw new IllegalArgumentException("invalid escape");
+                        }
+                        sb.append((char) Integer.parseInt(text.substring(i, i + 4), 16));
+                        i += 4;
+                        break;
+                    default:
+                        sb.append(e);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        position[0] = i;
+        return sb.toString();
+    }
+
+    /**
+     * Verifica se o próximo caractere significativo é o esperado, avançando a
+     * posição corrente.
+     * @param text Linha.
+     * @param position Posição corrente.
+     * @param expected Caractere esperado.
+     */
+    private static void expect(String text, int[] position, char expected) {
+        if (peek(text, position) != expected) {
+            throw new IllegalArgumentException("expected '" + expected + "' at column " + (position[0] + 1));
+        }
+        position[0]++;
+    }
+
+    /**
+     * Obtém o próximo caractere significativo, ignorando espaços.
+     * @param text Linha.
+     * @param position Posição corrente, atualizada para o caractere obtido.
+     * @return Caractere, ou o caractere nulo ao final da linha.
+     */
+    private static char peek(String text, int[] position) {
+        position[0] = skip(text, position[0]);
+        return position[0] < text.length() ? text.charAt(position[0]) : '\0';
+    }
+
+    /**
+     * Ignora espaços a partir da posição informada.
+     * @param text Linha.
+     * @param position Posição inicial.
+     * @return Posição do primeiro caractere que não é espaço.
+     */
+    private static int skip(String text, int position) {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+}
@@ -0,0 +1,171 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import br.usp.poli.lta.cereda.tagger.utils.Messages;
+import br.usp.poli.lta.cereda.tagger.utils.Utils;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementa o relatório periódico de progresso de uma análise, exibindo na
+ * saída de erro o número de arquivos encontrados e processados, a vazão do
+ * último intervalo, o número de falhas e a estimativa de tempo restante, e
+ * gravando opcionalmente as mesmas informações em um arquivo de estado no
+ * formato JSON, substituído atomicamente a cada intervalo para consulta por
+ * ferramentas de monitoramento. As estatísticas são apenas lidas, sem
+ * interferir nas threads de trabalho. Enquanto o percurso dos diretórios não
+ * termina, a estimativa considera apenas os arquivos já encontrados e é
+ * exibida como um limite inferior.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Progress implements AutoCloseable {
+
+    private final Statistics statistics;
+    private final PrintStream output;
+    private final File status;
+    private final ScheduledExecutorService timer;
+    private long files;
+    private long bytes;
+    private double time;
+
+    /**
+     * Construtor.
+     * @param statistics Estatísticas da análise.
+     * @param seconds Intervalo entre relatórios, em segundos.
+     * @param console Sinalizador que indica se o progresso deve ser exibido
+     * na saída de erro.
+     * @param status Arquivo de estado no formato JSON, ou nulo.
+     */
+    public Progress(Statistics statistics, int seconds, boolean console, File status) {
+        this.statistics = statistics;
+        this.output = console ? System.err : null;
+        this.status = status;
+        this.timer = Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "tagger-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (console || status != null) {
+            this.timer.scheduleAtFixedRate(() -> report(false), seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Exibe uma linha de progresso e atualiza o arquivo de estado.
+     * @param complete Sinalizador que indica se a análise foi concluída.
+     */
+    private synchronized void report(boolean complete) {
+        long processed = statistics.getProcessed();
+        long done = processed + statistics.getFailed() + statistics.getSkipped();
+        long read = statistics.getBytes();
+        double elapsed = Math.max(statistics.getElapsed(), 1e-3);
+        double interval = Math.max(elapsed - time, 1e-3);
+        double rate = (processed - files) / interval;
+        double throughput = (read - bytes) / interval / (1024 * 1024);
+        files = processed;
+        bytes = read;
+        time = elapsed;
+        long remaining = Math.max(0, statistics.getDiscovered() - done);
+        double eta = complete ? 0 : (done == 0 ? -1 : remaining * elapsed / done);
+        if (output != null && !complete) {
+            String estimate = eta < 0 ? "--" : (statistics.isWalked() ? "" : ">").concat(format(eta));
+            output.println(Messages.getMessage("PROGRESS_LINE", processed, statistics.getDiscovered(), String.format("%.1f", rate), String.format("%.1f", throughput), statistics.getFailed(), estimate));
+        }
+        if (status != null) {
+            try {
+                write(String.format(Locale.ROOT, "{\"discovered\":%d,\"processed\":%d,\"failed\":%d,\"skipped\":%d,\"bytes\":%d,\"elapsed\":%.3f,\"filesPerSecond\":%.3f,\"megabytesPerSecond\":%.3f,\"eta\":%s,\"walked\":%b,\"complete\":%b}%n", statistics.getDiscovered(), processed, statistics.getFailed(), statistics.getSkipped(), read, elapsed, rate, throughput, eta < 0 ? "null" : String.format(Locale.ROOT, "%.1f", eta), statistics.isWalked(), complete));
+            } catch (IOException exception) {
+                // quack
+            }
+        }
+    }
+
+    /**
+     * Formata a duração informada como horas, minutos e segundos.
+     * @param seconds Duração, em segundos.
+     * @return Duração formatada.
+     */
+    private static String format(double seconds) {
+        long value = Math.round(seconds);
+        return String.format("%d:%02d:%02d", value / 3600, (value / 60) % 60, value % 60);
+    }
+
+    /**
+     * Substitui atomicamente o conteúdo do arquivo de estado.
+     * @param content Conteúdo.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    private void write(String content) throws IOException {
+        Path target = status.getAbsoluteFile().toPath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temporary.toFile())) {
+                stream.write(content.getBytes(StandardCharsets.UTF_8));
+            }
+            Utils.replaceFile(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Encerra o relatório periódico, gravando o estado final no arquivo de
+     * estado, caso exista. Um relatório em curso é aguardado, de modo que não
+     * sobrescreva o estado final.
+     */
+    @Override
+    public void close() {
+        timer.shutdown();
+        try {
+            timer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        if (status != null) {
+            report(true);
+        }
+    }
+
+}
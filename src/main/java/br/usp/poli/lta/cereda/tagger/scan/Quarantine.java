@@ -0,0 +1,180 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import br.usp.poli.lta.cereda.tagger.utils.Utils;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Implementa a quarentena de arquivos que excederam os limites de tempo ou de
+ * memória da análise. Cada registro guarda o tamanho e a data de modificação
+ * do arquivo; enquanto ambos permanecerem inalterados, o arquivo é ignorado
+ * nas análises seguintes. A quarentena é gravada em um arquivo texto, um
+ * registro por linha, com os campos separados por tabulações.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Quarantine {
+
+    private final File location;
+    private final Map<String, Entry> entries;
+    private boolean modified;
+
+    /**
+     * Construtor. Os registros são lidos do arquivo informado, caso exista.
+     * @param location Arquivo da quarentena.
+     * @throws IOException O arquivo não pôde ser lido.
+     */
+    public Quarantine(File location) throws IOException {
+        this.location = location;
+        this.entries = new TreeMap<>();
+        if (location.isFile()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(Utils.openStream(location), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", 4);
+                    if (fields.length == 4) {
+                        try {
+                            entries.put(fields[3], new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+                        } catch (NumberFormatException exception) {
+                            // quack
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifica se o arquivo está em quarentena. Registros de arquivos que
+     * foram modificados ou removidos são descartados.
+     * @param file Arquivo.
+     * @return Valor lógico indicando se o arquivo está em quarentena.
+     */
+    public synchronized boolean contains(File file) {
+        Entry entry = entries.get(file.getAbsolutePath());
+        if (entry == null) {
+            return false;
+        }
+        if (entry.size == file.length() && entry.modified == file.lastModified()) {
+            return true;
+        }
+        entries.remove(file.getAbsolutePath());
+        modified = true;
+        return false;
+    }
+
+    /**
+     * Obtém o motivo pelo qual o arquivo foi colocado em quarentena.
+     * @param file Arquivo.
+     * @return Motivo, ou nulo caso o arquivo não esteja em quarentena.
+     */
+    public synchronized String getReason(File file) {
+        Entry entry = entries.get(file.getAbsolutePath());
+        return entry == null ? null : entry.reason;
+    }
+
+    /**
+     * Coloca o arquivo em quarentena.
+     * @param file Arquivo.
+     * @param reason Motivo.
+     */
+    public synchronized void add(File file, String reason) {
+        entries.put(file.getAbsolutePath(), new Entry(file.length(), file.lastModified(), reason.replaceAll("[\\t\\r\\n]+", " ")));
+        modified = true;
+    }
+
+    /**
+     * Grava a quarentena, caso tenha sido modificada. O conteúdo é gravado
+     * em um arquivo temporário e então renomeado sobre o arquivo original.
+     * @throws IOException O arquivo não pôde ser gravado.
+     */
+    public synchronized void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        Path target = location.getAbsoluteFile().toPath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temporary.toFile())) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writer.write(String.format("%d\t%d\t%s\t%s\n", entry.getValue().size, entry.getValue().modified, entry.getValue().reason, entry.getKey()));
+                }
+                writer.flush();
+                stream.getFD().sync();
+            }
+            Utils.replaceFile(temporary, target);
+            modified = false;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Registra um arquivo em quarentena.
+     */
+    private static class Entry {
+
+        private final long size;
+        private final long modified;
+        private final String reason;
+
+        /**
+         * Construtor.
+         * @param size Tamanho do arquivo.
+         * @param modified Data de modificação do arquivo.
+         * @param reason Motivo da quarentena.
+         */
+        private Entry(long size, long modified, String reason) {
+            this.size = size;
+            this.modified = modified;
+            this.reason = reason;
+        }
+
+    }
+
+}
@@ -0,0 +1,436 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import br.usp.poli.lta.cereda.tagger.utils.Messages;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Implementa a análise paralela de arquivos. Cada arquivo submetido é
+ * processado por uma tarefa em uma thread de trabalho; os resultados são
+ * entregues ao consumidor na thread que submete os arquivos, de modo que o
+ * consumidor não precisa ser sincronizado. O número de tarefas pendentes é
+ * limitado, mantendo o consumo de memória independente do número de arquivos.
+ * Cada tarefa está sujeita a limites de tempo e de memória alocada; a tarefa
+ * que excede um limite é interrompida e, caso não termine em poucos segundos,
+ * é abandonada e sua thread é substituída, de modo que um único arquivo não
+ * paralisa a análise. Tarefas que gravam arquivos não estão sujeitas a esses
+ * limites, uma vez que a interrupção fecharia os canais de escrita e poderia
+ * deixar o arquivo parcialmente gravado. Os arquivos que excedem os limites
+ * são registrados na quarentena, quando existente, e ignorados nas análises
+ * seguintes enquanto não forem modificados. As leituras são autorizadas por um
+ * escalonador, que aplica os limites de banda e de concorrência configurados.
+ * @param <T> Tipo do resultado da análise de cada arquivo.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Scanner<T> implements Closeable {
+
+    private static final long GRACE = TimeUnit.SECONDS.toNanos(5);
+
+    private final ThreadPoolExecutor pool;
+    private final BlockingQueue<Outcome<T>> done;
+    private final Set<Outcome<T>> running;
+    private final ScheduledExecutorService watchdog;
+    private final ThreadMXBean threads;
+    private final Scheduler scheduler;
+    private final Task<T> task;
+    private final BiConsumer<File, T> consumer;
+    private final Statistics statistics;
+    private final Quarantine quarantine;
+    private final long timeout;
+    private final long memory;
+    private final int limit;
+    private final boolean budgeted;
+    private final ToLongFunction<File> cost;
+    private int pending;
+    private boolean closed;
+
+    /**
+     * Construtor. As tarefas estão sujeitas aos limites de tempo e de
+     * memória configurados.
+     * @param settings Configurações da análise.
+     * @param task Tarefa aplicada a cada arquivo.
+     * @param consumer Consumidor dos resultados.
+     * @param statistics Estatísticas da análise.
+     */
+    public Scanner(Settings settings, Task<T> task, BiConsumer<File, T> consumer, Statistics statistics) {
+        this(settings, task, consumer, statistics, true);
+    }
+
+    /**
+     * Construtor.
+     * @param settings Configurações da análise.
+     * @param task Tarefa aplicada a cada arquivo.
+     * @param consumer Consumidor dos resultados.
+     * @param statistics Estatísticas da análise.
+     * @param budgeted Sinalizador que indica se as tarefas estão sujeitas aos
+     * limites de tempo e de memória; tarefas que gravam arquivos nunca são
+     * interrompidas.
+     */
+    public Scanner(Settings settings, Task<T> task, BiConsumer<File, T> consumer, Statistics statistics, boolean budgeted) {
+        this(settings, task, consumer, statistics, budgeted, File::length);
+    }
+
+    /**
+     * Construtor.
+     * @param settings Configurações da análise.
+     * @param task Tarefa aplicada a cada arquivo.
+     * @param consumer Consumidor dos resultados.
+     * @param statistics Estatísticas da análise.
+     * @param budgeted Sinalizador que indica se as tarefas estão sujeitas aos
+     * limites de tempo e de memória; tarefas que gravam arquivos nunca são
+     * interrompidas.
+     * @param cost Função que fornece o número de bytes lidos de cada arquivo
+     * pela tarefa, cobrado pelo escalonador.
+     */
+    public Scanner(Settings settings, Task<T> task, BiConsumer<File, T> consumer, Statistics statistics, boolean budgeted, ToLongFunction<File> cost) {
+        this.pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(settings.getThreads(), (Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "tagger-scanner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.done = new LinkedBlockingQueue<>();
+        this.running = ConcurrentHashMap.newKeySet();
+        this.task = task;
+        this.consumer = consumer;
+        this.statistics = statistics;
+        this.scheduler = new Scheduler(settings, statistics);
+        this.quarantine = settings.getQuarantine();
+        this.budgeted = budgeted;
+        this.cost = cost;
+        this.timeout = budgeted ? TimeUnit.SECONDS.toNanos(settings.getTimeout()) : 0;
+        this.memory = budgeted ? settings.getMemory() * 1024L * 1024L : 0;
+        this.threads = ManagementFactory.getThreadMXBean();
+        if (memory > 0 && threads instanceof com.sun.management.ThreadMXBean) {
+            ((com.sun.management.ThreadMXBean) threads).setThreadAllocatedMemoryEnabled(true);
+        }
+        this.watchdog = Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "tagger-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (timeout > 0 || memory > 0) {
+            this.watchdog.scheduleWithFixedDelay(this::inspect, 250, 250, TimeUnit.MILLISECONDS);
+        }
+        this.limit = settings.getThreads() * 4;
+        this.pending = 0;
+    }
+
+    /**
+     * Submete um arquivo para análise, aguardando enquanto o limite de tarefas
+     * pendentes estiver esgotado.
+     * @param file Arquivo.
+     * @throws InterruptedException A thread corrente foi interrompida.
+     */
+    public void submit(File file) throws InterruptedException {
+        submit(file, null);
+    }
+
+    /**
+     * Submete um arquivo para análise, acompanhado de um valor a ser repassado
+     * à tarefa, aguardando enquanto o limite de tarefas pendentes estiver
+     * esgotado. Arquivos em quarentena são registrados como ignorados.
+     * @param file Arquivo.
+     * @param input Valor repassado à tarefa.
+     * @throws InterruptedException A thread corrente foi interrompida.
+     */
+    public void submit(File file, T input) throws InterruptedException {
+        statistics.discovered(file);
+        if (quarantine != null && quarantine.contains(file)) {
+            statistics.skipped(file, quarantine.getReason(file));
+            return;
+        }
+        Outcome<T> outcome = new Outcome<>(file);
+        pool.execute(() -> run(outcome, input));
+        pending++;
+        while (pending >= limit) {
+            deliver(done.take());
+        }
+        Outcome<T> ready;
+        while ((ready = done.poll()) != null) {
+            deliver(ready);
+        }
+    }
+
+    /**
+     * Aguarda a conclusão de todas as tarefas pendentes, encerra as threads
+     * de trabalho e grava a quarentena, caso tenha sido modificada. Caso a
+     * espera seja interrompida, as tarefas ainda não iniciadas são
+     * descartadas; as tarefas em execução são interrompidas apenas quando
+     * sujeitas aos limites, de modo que gravações em curso sejam concluídas.
+     * @throws InterruptedException A thread corrente foi interrompida.
+     * @throws IOException A quarentena não pôde ser gravada.
+     */
+    public void finish() throws InterruptedException, IOException {
+        try {
+            while (pending > 0) {
+                deliver(done.take());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Encerra as threads de trabalho sem aguardar as tarefas pendentes, cujos
+     * resultados são descartados, e grava a quarentena, caso tenha sido
+     * modificada, de modo que os arquivos que excederam os limites sejam
+     * lembrados mesmo quando a análise é abortada. Tarefas que gravam
+     * arquivos não são interrompidas. Chamadas posteriores não têm efeito.
+     * @throws IOException A quarentena não pôde ser gravada.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        watchdog.shutdownNow();
+        if (budgeted) {
+            pool.shutdownNow();
+        } else {
+            pool.getQueue().clear();
+            pool.shutdown();
+        }
+        if (quarantine != null) {
+            quarantine.save();
+        }
+    }
+
+    /**
+     * Executa a tarefa sobre o arquivo, capturando eventuais falhas. O
+     * resultado é descartado caso a tarefa tenha sido abandonada.
+     * @param outcome Resultado da tarefa.
+     * @param input Valor repassado à tarefa.
+     */
+    private void run(Outcome<T> outcome, T input) {
+        outcome.bytes = cost.applyAsLong(outcome.file);
+        try {
+            scheduler.acquire(outcome.bytes);
+        } catch (InterruptedException exception) {
+            complete(outcome, null, exception);
+            return;
+        }
+        outcome.thread = Thread.currentThread();
+        outcome.start = System.nanoTime();
+        outcome.allocated = allocated(outcome.thread);
+        running.add(outcome);
+        T result = null;
+        Throwable failure = null;
+        try {
+            result = task.apply(outcome.file, input);
+        } catch (Exception | StackOverflowError | OutOfMemoryError exception) {
+            failure = exception;
+        }
+        release(outcome);
+        if (running.remove(outcome)) {
+            Thread.interrupted();
+            if (outcome.violation != null) {
+                complete(outcome, null, outcome.violation);
+            } else {
+                complete(outcome, result, failure);
+            }
+        } else {
+            Thread.interrupted();
+            resize(-1);
+        }
+    }
+
+    /**
+     * Verifica os limites de tempo e de memória das tarefas em execução. A
+     * tarefa que excede um limite é interrompida; caso ainda esteja em
+     * execução após o período de tolerância, é abandonada e uma nova thread
+     * de trabalho é criada em seu lugar.
+     */
+    private void inspect() {
+        long now = System.nanoTime();
+        for (Outcome<T> outcome : running) {
+            if (outcome.violation == null) {
+                if (timeout > 0 && now - outcome.start > timeout) {
+                    outcome.violation = new TimeoutException(Messages.getMessage("BUDGET_TIME", TimeUnit.NANOSECONDS.toSeconds(timeout)));
+                } else if (memory > 0 && allocated(outcome.thread) - outcome.allocated > memory) {
+                    outcome.violation = new IOException(Messages.getMessage("BUDGET_MEMORY", memory / (1024 * 1024)));
+                }
+                if (outcome.violation != null) {
+                    outcome.violated = now;
+                    outcome.thread.interrupt();
+                }
+            } else if (now - outcome.violated > GRACE && running.remove(outcome)) {
+                release(outcome);
+                resize(1);
+                complete(outcome, null, outcome.violation);
+            }
+        }
+    }
+
+    /**
+     * Obtém o número de bytes alocados pela thread informada, caso a máquina
+     * virtual ofereça tal medida.
+     * @param thread Thread.
+     * @return Número de bytes alocados, ou zero.
+     */
+    private long allocated(Thread thread) {
+        if (memory > 0 && threads instanceof com.sun.management.ThreadMXBean) {
+            return Math.max(0, ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(thread.getId()));
+        }
+        return 0;
+    }
+
+    /**
+     * Ajusta o número de threads de trabalho, compensando as threads
+     * ocupadas por tarefas abandonadas.
+     * @param delta Variação do número de threads.
+     */
+    private synchronized void resize(int delta) {
+        if (delta > 0) {
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+        } else {
+            pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+        }
+    }
+
+    /**
+     * Informa ao escalonador a conclusão da leitura da tarefa. Apenas a
+     * primeira notificação de cada tarefa é considerada, uma vez que uma
+     * tarefa abandonada pode terminar posteriormente.
+     * @param outcome Resultado da tarefa.
+     */
+    private void release(Outcome<T> outcome) {
+        if (outcome.released.compareAndSet(false, true)) {
+            scheduler.release(outcome.bytes, System.nanoTime() - outcome.start);
+        }
+    }
+
+    /**
+     * Conclui a tarefa, disponibilizando o resultado para entrega. Apenas a
+     * primeira conclusão de cada tarefa é considerada.
+     * @param outcome Resultado da tarefa.
+     * @param result Resultado da análise.
+     * @param failure Falha da análise, ou nulo.
+     */
+    private void complete(Outcome<T> outcome, T result, Throwable failure) {
+        if (outcome.completed.compareAndSet(false, true)) {
+            outcome.result = result;
+            outcome.failure = failure;
+            done.add(outcome);
+        }
+    }
+
+    /**
+     * Entrega o resultado de uma tarefa concluída ao consumidor. Os arquivos
+     * que excederam os limites de tempo ou de memória são registrados na
+     * quarentena.
+     * @param outcome Resultado da tarefa.
+     */
+    private void deliver(Outcome<T> outcome) {
+        pending--;
+        if (outcome.failure == null) {
+            statistics.processed(outcome.file);
+            consumer.accept(outcome.file, outcome.result);
+        } else {
+            statistics.failed(outcome.file, outcome.failure);
+            if (quarantine != null && outcome.failure == outcome.violation) {
+                quarantine.add(outcome.file, outcome.failure.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Define a tarefa aplicada a cada arquivo.
+     * @param <T> Tipo do resultado da tarefa.
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+
+        /**
+         * Aplica a tarefa ao arquivo informado.
+         * @param file Arquivo.
+         * @param input Valor submetido com o arquivo, ou nulo.
+         * @return Resultado da tarefa.
+         * @throws Exception Falha na análise do arquivo.
+         */
+        T apply(File file, T input) throws Exception;
+
+    }
+
+    /**
+     * Registra a execução e o resultado de uma tarefa.
+     * @param <T> Tipo do resultado da tarefa.
+     */
+    private static class Outcome<T> {
+
+        private final File file;
+        private final AtomicBoolean completed;
+        private final AtomicBoolean released;
+        private volatile long bytes;
+        private volatile Thread thread;
+        private volatile long start;
+        private volatile long allocated;
+        private volatile Throwable violation;
+        private volatile long violated;
+        private T result;
+        private Throwable failure;
+
+        /**
+         * Construtor.
+         * @param file Arquivo.
+         */
+        private Outcome(File file) {
+            this.file = file;
+            this.completed = new AtomicBoolean(false);
+            this.released = new AtomicBoolean(false);
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementa o escalonamento de leituras de uma análise de arquivos. Cada
+ * leitura consome fichas de dois baldes, um de bytes e outro de arquivos por
+ * segundo, aguardando quando as fichas se esgotam, de modo que a análise
+ * respeita os limites de banda configurados. Opcionalmente, o número de
+ * leituras simultâneas é ajustado de acordo com a latência observada: a
+ * concorrência é reduzida quando a latência média de uma janela ultrapassa o
+ * dobro da menor latência observada, indicando disputa pelo dispositivo, e
+ * aumentada gradualmente, até o número de threads de trabalho, enquanto a
+ * latência se mantém próxima da referência.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Scheduler {
+
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    private final Statistics statistics;
+    private final Bucket bytes;
+    private final Bucket files;
+    private final boolean adaptive;
+    private final int maximum;
+    private int limit;
+    private int active;
+    private long baseline;
+    private long sum;
+    private int samples;
+    private long window;
+
+    /**
+     * Construtor.
+     * @param settings Configurações da análise.
+     * @param statistics Estatísticas da análise.
+     */
+    public Scheduler(Settings settings, Statistics statistics) {
+        this.statistics = statistics;
+        this.bytes = settings.getBandwidth() > 0 ? new Bucket(settings.getBandwidth() * 1024.0 * 1024.0) : null;
+        this.files = settings.getRate() > 0 ? new Bucket(settings.getRate()) : null;
+        this.adaptive = settings.isLocality();
+        this.maximum = settings.getThreads();
+        this.limit = maximum;
+        this.window = System.nanoTime();
+        statistics.concurrency(limit);
+    }
+
+    /**
+     * Aguarda a autorização para a leitura de um arquivo, de acordo com os
+     * limites de banda e de concorrência. Caso a espera seja interrompida, a
+     * vaga de concorrência eventualmente obtida é devolvida.
+     * @param amount Número de bytes a serem lidos do arquivo.
+     * @throws InterruptedException A thread corrente foi interrompida.
+     */
+    public void acquire(long amount) throws InterruptedException {
+        long start = System.nanoTime();
+        if (adaptive) {
+            synchronized (this) {
+                while (active >= limit) {
+                    wait();
+                }
+                active++;
+            }
+        }
+        try {
+            if (files != null) {
+                files.take(1);
+            }
+            if (bytes != null) {
+                bytes.take(Math.max(1, amount));
+            }
+        } catch (InterruptedException exception) {
+            if (adaptive) {
+                synchronized (this) {
+                    active--;
+                    notifyAll();
+                }
+            }
+            throw exception;
+        }
+        statistics.waited(System.nanoTime() - start);
+    }
+
+    /**
+     * Registra a conclusão da leitura de um arquivo, ajustando a concorrência
+     * de acordo com a latência observada.
+     * @param amount Número de bytes lidos do arquivo.
+     * @param nanos Duração da leitura, em nanossegundos.
+     */
+    public void release(long amount, long nanos) {
+        statistics.read(nanos);
+        if (!adaptive) {
+            return;
+        }
+        synchronized (this) {
+            active--;
+            sum += nanos / Math.max(1, amount >> 20);
+            samples++;
+            long now = System.nanoTime();
+            if (now - window >= WINDOW && samples >= limit) {
+                long average = sum / samples;
+                baseline = (baseline == 0 || average < baseline) ? average : baseline + baseline / 100;
+                if (average > 2 * baseline) {
+                    limit = Math.max(1, limit - Math.max(1, limit / 4));
+                } else if (4 * average < 5 * baseline && limit < maximum) {
+                    limit++;
+                }
+                statistics.concurrency(limit);
+                sum = 0;
+                samples = 0;
+                window = now;
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Implementa um balde de fichas, reabastecido continuamente a uma taxa
+     * fixa e com capacidade equivalente a um segundo. Uma retirada maior que
+     * o saldo é reservada, e a thread aguarda o tempo necessário para cobrir
+     * a diferença, de modo que a taxa média é respeitada mesmo para arquivos
+     * maiores que a capacidade do balde.
+     */
+    private static class Bucket {
+
+        private final double rate;
+        private double tokens;
+        private long updated;
+
+        /**
+         * Construtor.
+         * @param rate Fichas por segundo.
+         */
+        private Bucket(double rate) {
+            this.rate = rate;
+            this.tokens = rate;
+            this.updated = System.nanoTime();
+        }
+
+        /**
+         * Retira as fichas informadas, aguardando o reabastecimento caso o
+         * saldo seja insuficiente.
+         * @param amount Número de fichas.
+         * @throws InterruptedException A thread corrente foi interrompida.
+         */
+        private void take(long amount) throws InterruptedException {
+            long delay;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(rate, tokens + (now - updated) * rate / 1e9);
+                updated = now;
+                tokens -= amount;
+                delay = tokens < 0 ? (long) (-tokens / rate * 1e9) : 0;
+            }
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+        }
+
+    }
+
+}
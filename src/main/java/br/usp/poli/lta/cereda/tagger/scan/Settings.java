@@ -0,0 +1,309 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import br.usp.poli.lta.cereda.tagger.model.Engine;
+import java.io.File;
+
+/**
+ * Define as configurações de uma análise de arquivos.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Settings {
+
+    private int threads;
+    private boolean append;
+    private boolean follow;
+    private int timeout;
+    private int memory;
+    private Quarantine quarantine;
+    private File checkpoint;
+    private int bandwidth;
+    private int rate;
+    private boolean locality;
+    private int partition;
+    private int partitions;
+    private Engine engine;
+    private int cache;
+
+    /**
+     * Construtor.
+     */
+    public Settings() {
+        this.threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.timeout = 60;
+        this.partitions = 1;
+        this.engine = Engine.MEMORY;
+        this.cache = 256;
+    }
+
+    /**
+     * Obtém o número de threads de trabalho.
+     * @return Número de threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Define o número de threads de trabalho.
+     * @param threads Número de threads.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Verifica se os arquivos PDF devem ser atualizados de forma incremental.
+     * @return Valor lógico indicando o uso de atualização incremental.
+     */
+    public boolean isAppend() {
+        return append;
+    }
+
+    /**
+     * Define se os arquivos PDF devem ser atualizados de forma incremental.
+     * @param append Valor lógico indicando o uso de atualização incremental.
+     */
+    public void setAppend(boolean append) {
+        this.append = append;
+    }
+
+    /**
+     * Verifica se os links simbólicos devem ser seguidos durante o percurso
+     * dos diretórios.
+     * @return Valor lógico indicando se os links simbólicos são seguidos.
+     */
+    public boolean isFollow() {
+        return follow;
+    }
+
+    /**
+     * Define se os links simbólicos devem ser seguidos durante o percurso dos
+     * diretórios.
+     * @param follow Valor lógico indicando se os links simbólicos são
+     * seguidos.
+     */
+    public void setFollow(boolean follow) {
+        this.follow = follow;
+    }
+
+    /**
+     * Obtém o tempo máximo de análise de cada arquivo.
+     * @return Tempo máximo, em segundos.
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Define o tempo máximo de análise de cada arquivo.
+     * @param timeout Tempo máximo, em segundos.
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Obtém a quantidade máxima de memória alocada na análise de cada
+     * arquivo. O valor zero indica a ausência de limite.
+     * @return Quantidade máxima de memória, em MB.
+     */
+    public int getMemory() {
+        return memory;
+    }
+
+    /**
+     * Define a quantidade máxima de memória alocada na análise de cada
+     * arquivo. O valor zero indica a ausência de limite.
+     * @param memory Quantidade máxima de memória, em MB.
+     */
+    public void setMemory(int memory) {
+        this.memory = memory;
+    }
+
+    /**
+     * Obtém a quarentena de arquivos que excederam os limites da análise.
+     * @return Quarentena, ou nulo caso não seja utilizada.
+     */
+    public Quarantine getQuarantine() {
+        return quarantine;
+    }
+
+    /**
+     * Define a quarentena de arquivos que excederam os limites da análise.
+     * @param quarantine Quarentena, ou nulo caso não seja utilizada.
+     */
+    public void setQuarantine(Quarantine quarantine) {
+        this.quarantine = quarantine;
+    }
+
+    /**
+     * Obtém o arquivo do diário da análise.
+     * @return Arquivo do diário, ou nulo caso não seja utilizado.
+     */
+    public File getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Define o arquivo do diário da análise.
+     * @param checkpoint Arquivo do diário, ou nulo caso não seja utilizado.
+     */
+    public void setCheckpoint(File checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Obtém o limite de banda de leitura. O valor zero indica a ausência de
+     * limite.
+     * @return Limite de banda, em MB por segundo.
+     */
+    public int getBandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * Define o limite de banda de leitura. O valor zero indica a ausência de
+     * limite.
+     * @param bandwidth Limite de banda, em MB por segundo.
+     */
+    public void setBandwidth(int bandwidth) {
+        this.bandwidth = bandwidth;
+    }
+
+    /**
+     * Obtém o limite de arquivos lidos por segundo. O valor zero indica a
+     * ausência de limite.
+     * @return Limite de arquivos por segundo.
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * Define o limite de arquivos lidos por segundo. O valor zero indica a
+     * ausência de limite.
+     * @param rate Limite de arquivos por segundo.
+     */
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Verifica se as leituras devem favorecer a localidade, ordenando os
+     * arquivos de cada diretório pelo inode e ajustando a concorrência de
+     * acordo com a latência observada.
+     * @return Valor lógico indicando o favorecimento da localidade.
+     */
+    public boolean isLocality() {
+        return locality;
+    }
+
+    /**
+     * Define se as leituras devem favorecer a localidade, ordenando os
+     * arquivos de cada diretório pelo inode e ajustando a concorrência de
+     * acordo com a latência observada.
+     * @param locality Valor lógico indicando o favorecimento da localidade.
+     */
+    public void setLocality(boolean locality) {
+        this.locality = locality;
+    }
+
+    /**
+     * Obtém a partição desta análise, entre zero e o número de partições.
+     * @return Partição.
+     */
+    public int getPartition() {
+        return partition;
+    }
+
+    /**
+     * Define a partição desta análise, entre zero e o número de partições.
+     * @param partition Partição.
+     */
+    public void setPartition(int partition) {
+        this.partition = partition;
+    }
+
+    /**
+     * Obtém o número de partições em que os arquivos são divididos.
+     * @return Número de partições.
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Define o número de partições em que os arquivos são divididos.
+     * @param partitions Número de partições.
+     */
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Obtém o mecanismo de busca do banco de dados.
+     * @return Mecanismo de busca.
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Define o mecanismo de busca do banco de dados.
+     * @param engine Mecanismo de busca.
+     */
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Obtém o número máximo de consultas mantidas no cache do banco de dados.
+     * @return Número de consultas, ou zero caso o cache esteja desabilitado.
+     */
+    public int getCache() {
+        return cache;
+    }
+
+    /**
+     * Define o número máximo de consultas mantidas no cache do banco de dados.
+     * @param cache Número de consultas, ou zero para desabilitar o cache.
+     */
+    public void setCache(int cache) {
+        this.cache = cache;
+    }
+
+}
@@ -0,0 +1,317 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registra as estatísticas de uma análise de arquivos. Os contadores podem ser
+ * atualizados por várias threads.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Statistics {
+
+    private final LongAdder discovered;
+    private final LongAdder processed;
+    private final LongAdder bytes;
+    private final LongAdder added;
+    private final LongAdder updated;
+    private final LongAdder kept;
+    private final LongAdder failed;
+    private final LongAdder skipped;
+    private final LongAdder reads;
+    private final LongAdder latency;
+    private final LongAccumulator peak;
+    private final LongAdder waited;
+    private volatile int concurrency;
+    private volatile boolean walked;
+    private final Map<File, String> failures;
+    private final Map<File, String> skips;
+    private final long start;
+
+    /**
+     * Construtor.
+     */
+    public Statistics() {
+        this.discovered = new LongAdder();
+        this.processed = new LongAdder();
+        this.bytes = new LongAdder();
+        this.added = new LongAdder();
+        this.updated = new LongAdder();
+        this.kept = new LongAdder();
+        this.failed = new LongAdder();
+        this.skipped = new LongAdder();
+        this.reads = new LongAdder();
+        this.latency = new LongAdder();
+        this.peak = new LongAccumulator(Math::max, 0);
+        this.waited = new LongAdder();
+        this.failures = Collections.synchronizedMap(new TreeMap<>());
+        this.skips = Collections.synchronizedMap(new TreeMap<>());
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Registra um arquivo encontrado.
+     * @param file Arquivo.
+     */
+    public void discovered(File file) {
+        discovered.increment();
+    }
+
+    /**
+     * Registra um arquivo processado com sucesso.
+     * @param file Arquivo.
+     */
+    public void processed(File file) {
+        processed.increment();
+        bytes.add(file.length());
+    }
+
+    /**
+     * Registra um arquivo cujo processamento falhou.
+     * @param file Arquivo.
+     * @param failure Causa da falha.
+     */
+    public void failed(File file, Throwable failure) {
+        failed.increment();
+        failures.put(file, failure.getMessage() == null ? failure.getClass().getSimpleName() : failure.getMessage());
+    }
+
+    /**
+     * Registra um arquivo ignorado por estar em quarentena.
+     * @param file Arquivo.
+     * @param reason Motivo da quarentena.
+     */
+    public void skipped(File file, String reason) {
+        skipped.increment();
+        skips.put(file, reason);
+    }
+
+    /**
+     * Registra a duração da leitura de um arquivo.
+     * @param nanos Duração, em nanossegundos.
+     */
+    public void read(long nanos) {
+        reads.increment();
+        latency.add(nanos);
+        peak.accumulate(nanos);
+    }
+
+    /**
+     * Registra o tempo de espera imposto pelo escalonamento de leituras.
+     * @param nanos Tempo de espera, em nanossegundos.
+     */
+    public void waited(long nanos) {
+        waited.add(nanos);
+    }
+
+    /**
+     * Registra o limite corrente de leituras simultâneas.
+     * @param value Limite de leituras simultâneas.
+     */
+    public void concurrency(int value) {
+        concurrency = value;
+    }
+
+    /**
+     * Registra a conclusão do percurso dos diretórios, a partir da qual o
+     * número de arquivos encontrados é definitivo.
+     */
+    public void walked() {
+        walked = true;
+    }
+
+    /**
+     * Registra uma publicação inserida.
+     */
+    public void added() {
+        added.increment();
+    }
+
+    /**
+     * Registra uma publicação existente que foi atualizada.
+     */
+    public void updated() {
+        updated.increment();
+    }
+
+    /**
+     * Registra uma publicação existente que foi mantida.
+     */
+    public void kept() {
+        kept.increment();
+    }
+
+    /**
+     * Obtém o número de arquivos encontrados.
+     * @return Número de arquivos.
+     */
+    public long getDiscovered() {
+        return discovered.sum();
+    }
+
+    /**
+     * Obtém o número de arquivos processados com sucesso.
+     * @return Número de arquivos.
+     */
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * Obtém o número de bytes processados.
+     * @return Número de bytes.
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Obtém o número de publicações inseridas.
+     * @return Número de publicações.
+     */
+    public long getAdded() {
+        return added.sum();
+    }
+
+    /**
+     * Obtém o número de publicações existentes que foram atualizadas.
+     * @return Número de publicações.
+     */
+    public long getUpdated() {
+        return updated.sum();
+    }
+
+    /**
+     * Obtém o número de publicações existentes que foram mantidas.
+     * @return Número de publicações.
+     */
+    public long getKept() {
+        return kept.sum();
+    }
+
+    /**
+     * Obtém o número de arquivos cujo processamento falhou.
+     * @return Número de arquivos.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Obtém as falhas registradas, ordenadas pelo arquivo.
+     * @return Mapa de arquivos e respectivas causas de falha.
+     */
+    public Map<File, String> getFailures() {
+        synchronized (failures) {
+            return new TreeMap<>(failures);
+        }
+    }
+
+    /**
+     * Obtém o número de arquivos ignorados por estarem em quarentena.
+     * @return Número de arquivos.
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Obtém os arquivos ignorados por estarem em quarentena, ordenados pelo
+     * arquivo.
+     * @return Mapa de arquivos e respectivos motivos da quarentena.
+     */
+    public Map<File, String> getSkips() {
+        synchronized (skips) {
+            return new TreeMap<>(skips);
+        }
+    }
+
+    /**
+     * Obtém a latência média das leituras de arquivos.
+     * @return Latência média, em milissegundos.
+     */
+    public double getLatency() {
+        long count = reads.sum();
+        return count == 0 ? 0 : latency.sum() / 1e6 / count;
+    }
+
+    /**
+     * Obtém a maior latência observada nas leituras de arquivos.
+     * @return Latência máxima, em milissegundos.
+     */
+    public double getPeakLatency() {
+        return peak.get() / 1e6;
+    }
+
+    /**
+     * Obtém o tempo total de espera imposto pelo escalonamento de leituras,
+     * somado entre as threads de trabalho.
+     * @return Tempo de espera, em segundos.
+     */
+    public double getWaited() {
+        return waited.sum() / 1e9;
+    }
+
+    /**
+     * Obtém o limite corrente de leituras simultâneas.
+     * @return Limite de leituras simultâneas.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Verifica se o percurso dos diretórios foi concluído.
+     * @return Valor lógico indicando a conclusão do percurso.
+     */
+    public boolean isWalked() {
+        return walked;
+    }
+
+    /**
+     * Obtém o tempo decorrido desde o início da análise, em segundos.
+     * @return Tempo decorrido.
+     */
+    public double getElapsed() {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+}
@@ -0,0 +1,356 @@
+/**
+ * ------------------------------------------------------
+ *    Laboratório de Linguagens e Técnicas Adaptativas
+ *       Escola Politécnica, Universidade São Paulo
+ * ------------------------------------------------------
+ * 
+ * Copyright (c) 2016, Paulo Roberto Massa Cereda
+ * 
+ * Permission  is  hereby  granted, free  of  charge,  to
+ * any  person  obtaining a  copy  of  this software  and
+ * associated  documentation files  (the "Software"),  to
+ * deal  in the  Software without  restriction, including
+ * without limitation  the rights  to use,  copy, modify,
+ * merge,  publish, distribute,  sublicense, and/or  sell
+ * copies of the Software, and  to permit persons to whom
+ * the Software  is furnished  to do  so, subject  to the
+ * following conditions:
+ * 
+ * The above copyright notice  and this permission notice
+ * shall  be  included  in   all  copies  or  substantial
+ * portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED  "AS IS", WITHOUT WARRANTY OF
+ * ANY  KIND,  EXPRESS  OR  IMPLIED,  INCLUDING  BUT  NOT
+ * LIMITED TO THE  WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A  PARTICULAR PURPOSE  AND NONINFRINGEMENT.  IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES  OR OTHER LIABILITY, WHETHER IN
+ * AN  ACTION OF  CONTRACT,  TORT  OR OTHERWISE,  ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package br.usp.poli.lta.cereda.tagger.scan;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Implementa o percurso de uma árvore de diretórios em busca de arquivos PDF.
+ * Os arquivos são entregues ao visitante à medida que são encontrados, de modo
+ * que o processamento começa imediatamente e o consumo de memória depende
+ * apenas da profundidade da árvore. Cada diretório pode conter um arquivo
+ * '.taggerignore' com padrões glob, um por linha, de arquivos e diretórios a
+ * serem ignorados na respectiva subárvore. Linhas vazias ou iniciadas por '#'
+ * são desconsideradas; padrões terminados em '/' aplicam-se apenas a
+ * diretórios, e padrões sem '/' aplicam-se ao nome em qualquer nível. Links
+ * simbólicos são seguidos apenas se as configurações assim indicarem, e ciclos
+ * são ignorados. A extensão dos arquivos é verificada sem distinção entre
+ * maiúsculas e minúsculas.
+ * @author Paulo Roberto Massa Cereda
+ * @version 1.0
+ * @since 1.0
+ */
+public class Walker {
+
+    /**
+     * Nome do arquivo de padrões a serem ignorados.
+     */
+    public static final String IGNORE = ".taggerignore";
+
+    private static final Pattern INODE = Pattern.compile("ino=(\\d+)");
+
+    private final boolean follow;
+    private final boolean locality;
+    private final int partition;
+    private final int partitions;
+
+    /**
+     * Construtor.
+     * @param settings Configurações da análise.
+     */
+    public Walker(Settings settings) {
+        this.follow = settings.isFollow();
+        this.locality = settings.isLocality();
+        this.partition = settings.getPartition();
+        this.partitions = settings.getPartitions();
+    }
+
+    /**
+     * Percorre o diretório informado, entregando cada arquivo PDF encontrado
+     * ao visitante. Diretórios e arquivos '.taggerignore' ilegíveis são
+     * registrados como falhas nas estatísticas e ciclos de links simbólicos
+     * são ignorados; em todos os casos, o percurso prossegue. Caso as configurações favoreçam a
+     * localidade, os arquivos de cada diretório são entregues em ordem de
+     * inode ao final do diretório, reduzindo os deslocamentos em discos
+     * rotativos. Caso as configurações indiquem uma partição, apenas os
+     * arquivos cujo caminho relativo ao diretório pertence à partição são
+     * entregues, de modo que vários processos podem dividir a mesma árvore.
+     * @param directory Diretório.
+     * @param visitor Visitante dos arquivos.
+     * @param statistics Estatísticas da análise.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    public void walk(File directory, Visitor visitor, Statistics statistics) throws IOException {
+        Path start = directory.toPath();
+        if (Files.isSymbolicLink(start)) {
+            start = start.toRealPath();
+        }
+        Set<FileVisitOption> options = follow ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) : Collections.emptySet();
+        Path root = start;
+        Deque<Rules> rules = new ArrayDeque<>();
+        Deque<List<Map.Entry<Long, Path>>> pending = new ArrayDeque<>();
+        Files.walkFileTree(start, options, Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes) throws IOException {
+                if (!rules.isEmpty() && ignored(rules, path, true)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Rules rule = new Rules(path);
+                try {
+                    rule.load();
+                } catch (IOException exception) {
+                    statistics.failed(path.resolve(IGNORE).toFile(), exception);
+                }
+                rules.push(rule);
+                if (locality) {
+                    pending.push(new ArrayList<>());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) throws IOException {
+                if (attributes.isRegularFile() && path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf") && owned(root.relativize(path)) && !ignored(rules, path, false)) {
+                    if (locality && !pending.isEmpty()) {
+                        pending.peek().add(new SimpleImmutableEntry<>(inode(attributes), path));
+                    } else {
+                        visit(visitor, path);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException exception) throws IOException {
+                if (!(exception instanceof FileSystemLoopException) && !ignored(rules, path, Files.isDirectory(path))) {
+                    statistics.failed(path.toFile(), exception);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path path, IOException exception) throws IOException {
+                rules.pop();
+                if (locality) {
+                    List<Map.Entry<Long, Path>> files = pending.pop();
+                    files.sort(Map.Entry.comparingByKey());
+                    for (Map.Entry<Long, Path> file : files) {
+                        visit(visitor, file.getValue());
+                    }
+                }
+                if (exception != null) {
+                    statistics.failed(path.toFile(), exception);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+        statistics.walked();
+    }
+
+    /**
+     * Verifica se o arquivo pertence à partição desta análise, de acordo com
+     * o hash do caminho relativo, calculado com '/' como separador para que
+     * a divisão seja a mesma em qualquer sistema.
+     * @param relative Caminho relativo ao diretório percorrido.
+     * @return Valor lógico indicando se o arquivo pertence à partição.
+     */
+    private boolean owned(Path relative) {
+        if (partitions <= 1) {
+            return true;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(relative.toString().replace(File.separatorChar, '/').getBytes(StandardCharsets.UTF_8));
+        return crc.getValue() % partitions == partition;
+    }
+
+    /**
+     * Entrega o arquivo ao visitante.
+     * @param visitor Visitante dos arquivos.
+     * @param path Caminho do arquivo.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    private static void visit(Visitor visitor, Path path) throws IOException {
+        try {
+            visitor.visit(path.toFile());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Obtém o inode do arquivo a partir da chave fornecida pelo sistema de
+     * arquivos. Sistemas que não fornecem a chave resultam em zero, mantendo
+     * a ordem original.
+     * @param attributes Atributos do arquivo.
+     * @return Inode do arquivo, ou zero.
+     */
+    private static long inode(BasicFileAttributes attributes) {
+        Object key = attributes.fileKey();
+        if (key != null) {
+            Matcher matcher = INODE.matcher(key.toString());
+            if (matcher.find()) {
+                return Long.parseLong(matcher.group(1));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Verifica se o caminho deve ser ignorado de acordo com as regras dos
+     * diretórios ancestrais.
+     * @param rules Regras dos diretórios ancestrais.
+     * @param path Caminho.
+     * @param directory Valor lógico indicando se o caminho é um diretório.
+     * @return Valor lógico indicando se o caminho deve ser ignorado.
+     */
+    private static boolean ignored(Deque<Rules> rules, Path path, boolean directory) {
+        for (Rules rule : rules) {
+            if (rule.matches(path, directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Define o visitante dos arquivos encontrados.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Visita o arquivo informado.
+         * @param file Arquivo.
+         * @throws IOException Exceção de entrada e saída.
+         * @throws InterruptedException A thread corrente foi interrompida.
+         */
+        void visit(File file) throws IOException, InterruptedException;
+
+    }
+
+    /**
+     * Registra os padrões do arquivo '.taggerignore' de um diretório.
+     */
+    private static class Rules {
+
+        private final Path base;
+        private final List<PathMatcher> names;
+        private final List<PathMatcher> paths;
+        private final List<PathMatcher> directories;
+
+        /**
+         * Construtor. As regras começam vazias.
+         * @param base Diretório.
+         */
+        private Rules(Path base) {
+            this.base = base;
+            this.names = new ArrayList<>();
+            this.paths = new ArrayList<>();
+            this.directories = new ArrayList<>();
+        }
+
+        /**
+         * Lê os padrões do arquivo '.taggerignore' do diretório, caso exista.
+         * Em caso de falha, nenhum padrão é registrado.
+         * @throws IOException Exceção de entrada e saída.
+         */
+        private void load() throws IOException {
+            Path file = base.resolve(IGNORE);
+            if (Files.isRegularFile(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String pattern = line.trim();
+                    if (pattern.isEmpty() || pattern.startsWith("#")) {
+                        continue;
+                    }
+                    List<PathMatcher> target = names;
+                    if (pattern.endsWith("/")) {
+                        pattern = pattern.substring(0, pattern.length() - 1);
+                        target = directories;
+                    }
+                    if (pattern.startsWith("/")) {
+                        pattern = pattern.substring(1);
+                    }
+                    if (pattern.isEmpty()) {
+                        continue;
+                    }
+                    if (target == names && line.trim().contains("/")) {
+                        target = paths;
+                    }
+                    target.add(FileSystems.getDefault().getPathMatcher("glob:".concat(pattern)));
+                }
+            }
+        }
+
+        /**
+         * Verifica se o caminho corresponde a algum dos padrões.
+         * @param path Caminho.
+         * @param directory Valor lógico indicando se o caminho é um diretório.
+         * @return Valor lógico indicando a correspondência.
+         */
+        private boolean matches(Path path, boolean directory) {
+            if (names.isEmpty() && paths.isEmpty() && directories.isEmpty()) {
+                return false;
+            }
+            Path name = path.getFileName();
+            Path relative = base.relativize(path);
+            for (PathMatcher matcher : names) {
+                if (matcher.matches(name)) {
+                    return true;
+                }
+            }
+            for (PathMatcher matcher : paths) {
+                if (matcher.matches(relative)) {
+                    return true;
+                }
+            }
+            if (directory) {
+                for (PathMatcher matcher : directories) {
+                    if (matcher.matches(relative) || matcher.matches(name)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
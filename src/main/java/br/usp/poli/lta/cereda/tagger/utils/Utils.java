@@ -33,14 +33,25 @@
 package br.usp.poli.lta.cereda.tagger.utils;
 
 import br.usp.poli.lta.cereda.tagger.model.Publication;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 import org.apache.commons.cli.Options;
@@ -99,6 +110,83 @@ public class Utils {
         return FileUtils.checksumCRC32(file);
     }
 
+    /**
+     * Verifica se o arquivo informado deve ser gravado de forma compactada, de
+     * acordo com a sua extensão.
+     * @param file Arquivo.
+     * @return Valor lógico indicando se o arquivo é compactado.
+     */
+    public static boolean isCompressed(File file) {
+        return file.getName().toLowerCase().endsWith(".gz");
+    }
+
+    /**
+     * Abre o arquivo informado para leitura com buffer, descompactando-o caso
+     * o conteúdo esteja no formato gzip.
+     * @param file Arquivo.
+     * @return Fluxo de entrada.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    public static InputStream openStream(File file) throws IOException {
+        InputStream input = new BufferedInputStream(new FileInputStream(file), 65536);
+        try {
+            input.mark(2);
+            int first = input.read();
+            int second = input.read();
+            input.reset();
+            if (first == 0x1f && second == 0x8b) {
+                return new BufferedInputStream(new GZIPInputStream(input, 65536), 65536);
+            }
+            return input;
+        } catch (IOException exception) {
+            input.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Sincroniza o conteúdo do arquivo informado com o disco.
+     * @param file Arquivo.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    public static void sync(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Substitui o arquivo de destino pelo arquivo de origem através de uma
+     * renomeação atômica, quando suportada pelo sistema de arquivos, e
+     * sincroniza o diretório de destino com o disco. As permissões do arquivo
+     * de destino, se existente, são preservadas.
+     * @param source Arquivo de origem.
+     * @param target Arquivo de destino.
+     * @throws IOException Exceção de entrada e saída.
+     */
+    public static void replaceFile(Path source, Path target) throws IOException {
+        if (Files.exists(target)) {
+            try {
+                Files.setPosixFilePermissions(source, Files.getPosixFilePermissions(target));
+            } catch (UnsupportedOperationException exception) {
+                // quack
+            }
+        }
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Path directory = target.toAbsolutePath().getParent();
+        if (directory != null) {
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException exception) {
+                // quack
+            }
+        }
+    }
+
     /**
      * Transforma o texto informado em um conjunto.
      * @param text Texto.
@@ -124,6 +212,20 @@ public class Utils {
         System.out.println(StringUtils.repeat('-', 70));
     }
 
+    /**
+     * Exibe uma tabela de chaves e respectivas contagens.
+     * @param title Título da tabela.
+     * @param counts Lista de chaves e respectivas contagens.
+     */
+    public static void printCounts(String title, List<Map.Entry<String, Integer>> counts) {
+        System.out.println(StringUtils.rightPad(title.toUpperCase().concat(" "), 70, '-'));
+        for (Map.Entry<String, Integer> entry : counts) {
+            String count = String.valueOf(entry.getValue());
+            System.out.println(StringUtils.rightPad(StringUtils.abbreviate(entry.getKey(), 68 - count.length()).concat(" "), 69 - count.length(), '.').concat(" ").concat(count));
+        }
+        System.out.println(StringUtils.repeat('-', 70));
+    }
+
     /**
      * Obtém as opções de linha de comando.
      * @return Opções de linha de comando.
@@ -140,6 +242,39 @@ public class Utils {
         options.addOption("t", "tags", true, Messages.getMessage("OPT_TAGS"));
         options.addOption("a", "authors", true, Messages.getMessage("OPT_AUTHORS"));
         options.addOption("D", "display", false, Messages.getMessage("OPT_DISPLAY"));
+        options.addOption("i", "index", false, Messages.getMessage("OPT_INDEX"));
+        options.addOption("p", "policy", true, Messages.getMessage("OPT_POLICY"));
+        options.addOption("T", "threads", true, Messages.getMessage("OPT_THREADS"));
+        options.addOption("S", "stamp", false, Messages.getMessage("OPT_STAMP"));
+        options.addOption("A", "append", false, Messages.getMessage("OPT_APPEND"));
+        options.addOption("I", "inplace", false, Messages.getMessage("OPT_INPLACE"));
+        options.addOption("L", "follow", false, Messages.getMessage("OPT_FOLLOW"));
+        options.addOption("o", "timeout", true, Messages.getMessage("OPT_TIMEOUT"));
+        options.addOption("m", "memory", true, Messages.getMessage("OPT_MEMORY"));
+        options.addOption("q", "quarantine", true, Messages.getMessage("OPT_QUARANTINE"));
+        options.addOption("k", "checkpoint", true, Messages.getMessage("OPT_CHECKPOINT"));
+        options.addOption("b", "bandwidth", true, Messages.getMessage("OPT_BANDWIDTH"));
+        options.addOption("R", "rate", true, Messages.getMessage("OPT_RATE"));
+        options.addOption("l", "locality", false, Messages.getMessage("OPT_LOCALITY"));
+        options.addOption("P", "progress", true, Messages.getMessage("OPT_PROGRESS"));
+        options.addOption("j", "status", true, Messages.getMessage("OPT_STATUS"));
+        options.addOption("x", "partition", true, Messages.getMessage("OPT_PARTITION"));
+        options.addOption("w", "partial", true, Messages.getMessage("OPT_PARTIAL"));
+        options.addOption("M", "merge", true, Messages.getMessage("OPT_MERGE"));
+        options.addOption("g", "retag", true, Messages.getMessage("OPT_RETAG"));
+        options.addOption("G", "untag", true, Messages.getMessage("OPT_UNTAG"));
+        options.addOption("Q", "queue", true, Messages.getMessage("OPT_QUEUE"));
+        options.addOption("W", "title", true, Messages.getMessage("OPT_TITLE"));
+        options.addOption("f", "facets", false, Messages.getMessage("OPT_FACETS"));
+        options.addOption("y", "complete", true, Messages.getMessage("OPT_COMPLETE"));
+        options.addOption("C", "cooccur", true, Messages.getMessage("OPT_COOCCUR"));
+        options.addOption("z", "fuzzy", true, Messages.getMessage("OPT_FUZZY"));
+        options.addOption("n", "top", true, Messages.getMessage("OPT_TOP"));
+        options.addOption("O", "created", true, Messages.getMessage("OPT_CREATED"));
+        options.addOption("U", "modified", true, Messages.getMessage("OPT_MODIFIED"));
+        options.addOption("N", "pages", true, Messages.getMessage("OPT_PAGES"));
+        options.addOption("E", "engine", true, Messages.getMessage("OPT_ENGINE"));
+        options.addOption("c", "duplicates", false, Messages.getMessage("OPT_DUPLICATES"));
 
         return options;
     }
@@ -177,6 +312,34 @@ public class Utils {
         return query.stream().map(Publication::toString).collect(Collectors.toList());
     }
 
+    /**
+     * Constrói entradas a partir de um mapa de publicações e respectivas
+     * bases de dados de origem.
+     * @param query Mapa de publicações e bases de dados.
+     * @return Lista de textos.
+     */
+    public static List<String> buildAttributions(Map<Publication, Set<File>> query) {
+        return query.entrySet().stream().map((Map.Entry<Publication, Set<File>> t) -> t.getKey().toString().concat("\n").concat(StringUtils.repeat('.', 70)).concat("\n").concat(Messages.getMessage("SOURCES").toUpperCase()).concat(":").concat(t.getValue().stream().map((File f) -> "\n".concat(WordUtils.wrap("- ".concat(f.getAbsolutePath()), 70, "\n", true))).collect(Collectors.joining()))).collect(Collectors.toList());
+    }
+
+    /**
+     * Constrói entradas a partir de um mapa de arquivos e causas de falha.
+     * @param failures Mapa de arquivos e causas de falha.
+     * @return Lista de textos.
+     */
+    public static List<String> buildFailures(Map<File, String> failures) {
+        return failures.entrySet().stream().map((Map.Entry<File, String> t) -> WordUtils.wrap(t.getKey().getAbsolutePath().concat(": ").concat(t.getValue()), 70, "\n", true)).collect(Collectors.toList());
+    }
+
+    /**
+     * Constrói a lista de grupos de arquivos duplicados.
+     * @param groups Grupos de arquivos duplicados.
+     * @return Lista de entradas.
+     */
+    public static List<String> buildDuplicates(List<List<File>> groups) {
+        return groups.stream().map((List<File> t) -> String.format("%d x %d bytes\n", t.size(), t.get(0).length()).concat(t.stream().map((File f) -> WordUtils.wrap("- ".concat(f.getAbsolutePath()), 70, "\n  ", true)).collect(Collectors.joining("\n")))).collect(Collectors.toList());
+    }
+
     /**
      * Assegura que o arquivo existe.
      * @param file Arquivo.
@@ -216,7 +379,18 @@ public class Utils {
      * @throws Exception A consulta é vazia.
      */
     public static void ensureQuery(Set<String> query) throws Exception {
-        if (query.stream().filter((String t) -> t.trim().isEmpty()).count() == 0) {
+        if (query.isEmpty() || query.stream().anyMatch((String t) -> t.trim().isEmpty())) {
+            throw new Exception(Messages.getMessage("INVALID_QUERY"));
+        }
+    }
+
+    /**
+     * Assegura que a consulta textual não é vazia.
+     * @param query Consulta.
+     * @throws Exception Consulta vazia.
+     */
+    public static void ensureQuery(String query) throws Exception {
+        if (query.trim().isEmpty()) {
             throw new Exception(Messages.getMessage("INVALID_QUERY"));
         }
     }